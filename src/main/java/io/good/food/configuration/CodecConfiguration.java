@@ -0,0 +1,24 @@
+package io.good.food.configuration;
+
+import io.good.food.streaming.codec.OrderBinaryCodec;
+import io.good.food.streaming.codec.OrderBinaryMessageConverter;
+import org.springframework.cloud.stream.annotation.StreamMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+
+@Configuration
+public class CodecConfiguration {
+
+    @Bean
+    public OrderBinaryCodec orderBinaryCodec() {
+        return new OrderBinaryCodec();
+    }
+
+    @Bean
+    @StreamMessageConverter
+    public MessageConverter orderBinaryMessageConverter(final OrderBinaryCodec orderBinaryCodec) {
+        return new OrderBinaryMessageConverter(orderBinaryCodec);
+    }
+
+}
@@ -1,10 +1,14 @@
 package io.good.food.configuration;
 
+import io.good.food.dto.type.ActionType;
+import io.vavr.control.Option;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Configuration
 public class ConsumerConfiguration {
@@ -13,5 +17,18 @@ public class ConsumerConfiguration {
 	public Duration consumerTimeout(@Value("${consumer.timeout:30000}") final Long timeoutEmMillisegundos) {
 		return Duration.ofMillis(timeoutEmMillisegundos);
 	}
+
+	@Bean
+	public Map<ActionType, Duration> consumerTimeouts(final Duration consumerTimeout,
+													  @Value("${consumer.timeouts.create:}") final Long create,
+													  @Value("${consumer.timeouts.update:}") final Long update,
+													  @Value("${consumer.timeouts.delete:}") final Long delete) {
+		final var timeouts = new EnumMap<ActionType, Duration>(ActionType.class);
+		timeouts.put(ActionType.CREATE, Option.of(create).map(Duration::ofMillis).getOrElse(consumerTimeout));
+		timeouts.put(ActionType.UPDATE, Option.of(update).map(Duration::ofMillis).getOrElse(consumerTimeout));
+		timeouts.put(ActionType.DELETE, Option.of(delete).map(Duration::ofMillis).getOrElse(consumerTimeout));
+
+		return timeouts;
+	}
 	
 }
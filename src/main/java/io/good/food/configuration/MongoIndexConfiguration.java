@@ -0,0 +1,84 @@
+package io.good.food.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+@Configuration
+public class MongoIndexConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoIndexConfiguration.class);
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+
+    private final MongoMappingContext mongoMappingContext;
+
+    private final Boolean verify;
+
+    public MongoIndexConfiguration(final ReactiveMongoOperations reactiveMongoOperations,
+                                   final MongoMappingContext mongoMappingContext,
+                                   @Value("${mongo.indexes.verify:true}") final Boolean verify) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.mongoMappingContext = mongoMappingContext;
+        this.verify = verify;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        if(!this.verify) {
+            return;
+        }
+
+        final var indexResolver = new MongoPersistentEntityIndexResolver(this.mongoMappingContext);
+
+        // A missing index turns the listings into collection scans, so the application refuses to start without them
+        Flux.fromIterable(this.mongoMappingContext.getPersistentEntities())
+                .filter(entity -> entity.isAnnotationPresent(Document.class))
+                .concatMap(entity -> this.ensureIndexes(entity, indexResolver))
+                .blockLast();
+    }
+
+    private Mono<Void> ensureIndexes(final MongoPersistentEntity<?> entity, final MongoPersistentEntityIndexResolver indexResolver) {
+        final var indexOps = this.reactiveMongoOperations.indexOps(entity.getCollection());
+        final List<IndexDefinition> declared = StreamSupport.stream(indexResolver.resolveIndexFor(entity.getTypeInformation()).spliterator(), false)
+                .map(IndexDefinition.class::cast)
+                .collect(Collectors.toList());
+
+        return Flux.fromIterable(declared)
+                .concatMap(indexOps::ensureIndex)
+                .thenMany(indexOps.getIndexInfo())
+                .map(IndexInfo::getName)
+                .collectList()
+                .doOnNext(existing -> {
+                    final var missing = declared.stream()
+                            .map(IndexDefinition::getIndexOptions)
+                            .map(options -> Objects.toString(options.get("name")))
+                            .filter(name -> !existing.contains(name))
+                            .collect(Collectors.toList());
+
+                    if(!missing.isEmpty()) {
+                        throw new IllegalStateException("Missing indexes " + missing + " on collection " + entity.getCollection());
+                    }
+
+                    LOGGER.info("Verified indexes {} on collection {}", existing, entity.getCollection());
+                })
+                .then();
+    }
+}
@@ -0,0 +1,62 @@
+package io.good.food.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Configuration
+public class MongoVersionConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoVersionConfiguration.class);
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+
+    private final MongoMappingContext mongoMappingContext;
+
+    private final Boolean backfill;
+
+    public MongoVersionConfiguration(final ReactiveMongoOperations reactiveMongoOperations,
+                                     final MongoMappingContext mongoMappingContext,
+                                     @Value("${mongo.versions.backfill:true}") final Boolean backfill) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.mongoMappingContext = mongoMappingContext;
+        this.backfill = backfill;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVersions() {
+        if(!this.backfill) {
+            return;
+        }
+
+        // Documents written before the entities were versioned have no version, which a save takes for a new document
+        Flux.fromIterable(this.mongoMappingContext.getPersistentEntities())
+                .filter(entity -> entity.isAnnotationPresent(Document.class) && entity.hasVersionProperty())
+                .concatMap(this::backfillVersions)
+                .blockLast();
+    }
+
+    private Mono<Void> backfillVersions(final MongoPersistentEntity<?> entity) {
+        final var field = entity.getRequiredVersionProperty().getFieldName();
+
+        return this.reactiveMongoOperations.updateMulti(Query.query(Criteria.where(field).exists(false)), Update.update(field, 0L), entity.getCollection())
+                .doOnNext(result -> {
+                    if(result.getModifiedCount() > 0) {
+                        LOGGER.info("Set version 0 on {} documents of collection {}", result.getModifiedCount(), entity.getCollection());
+                    }
+                })
+                .then();
+    }
+}
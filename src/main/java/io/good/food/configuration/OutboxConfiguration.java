@@ -0,0 +1,24 @@
+package io.good.food.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+@Configuration
+@ConditionalOnProperty(value = "outbox.enabled", havingValue = "true")
+public class OutboxConfiguration {
+
+    @Bean
+    public ReactiveMongoTransactionManager reactiveMongoTransactionManager(final ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory) {
+        return new ReactiveMongoTransactionManager(reactiveMongoDatabaseFactory);
+    }
+
+    @Bean
+    public TransactionalOperator transactionalOperator(final ReactiveMongoTransactionManager reactiveMongoTransactionManager) {
+        return TransactionalOperator.create(reactiveMongoTransactionManager);
+    }
+
+}
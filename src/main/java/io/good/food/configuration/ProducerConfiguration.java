@@ -0,0 +1,18 @@
+package io.good.food.configuration;
+
+import io.good.food.streaming.OrderProducer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.MessageChannel;
+
+@Configuration
+public class ProducerConfiguration {
+
+    // Record metadata channel of the order-producer binding, it has to exist before the binding is created
+    @Bean(OrderProducer.RESULTS)
+    public MessageChannel orderProducerResults() {
+        return new DirectChannel();
+    }
+
+}
@@ -0,0 +1,45 @@
+package io.good.food.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfiguration implements WebFluxConfigurer {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    public WebConfiguration(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(final ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(ndjsonEncoder(this.objectMapper));
+        configurer.customCodecs().register(ndjsonDecoder(this.objectMapper));
+    }
+
+    public static Jackson2JsonEncoder ndjsonEncoder(final ObjectMapper objectMapper) {
+        // The default encoder only streams application/stream+json, this is the same line per element encoding
+        final var encoder = new Jackson2JsonEncoder(objectMapper, APPLICATION_NDJSON);
+        encoder.setStreamingMediaTypes(List.of(APPLICATION_NDJSON));
+
+        return encoder;
+    }
+
+    public static Jackson2JsonDecoder ndjsonDecoder(final ObjectMapper objectMapper) {
+        // Reads one element per line, so a bulk request body is handled as it arrives
+        return new Jackson2JsonDecoder(objectMapper, APPLICATION_NDJSON);
+    }
+
+}
@@ -2,13 +2,21 @@ package io.good.food.controller;
 
 import io.good.food.dto.request.CustomerInsertRequestDTO;
 import io.good.food.dto.request.CustomerUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.dto.response.BulkResultDTO;
+import io.good.food.dto.response.CustomerDeleteProgressDTO;
 import io.good.food.dto.response.CustomerResponseDTO;
 import io.good.food.service.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("customers")
 public class CustomerController {
@@ -19,6 +27,18 @@ public class CustomerController {
         this.customerService = customerService;
     }
 
+    @GetMapping(params = "suids")
+    @Operation(summary = "Get customers by suids, missing ones are reported inline")
+    public Flux<BatchGetResponseDTO<CustomerResponseDTO>> findAllBySuid(@RequestParam("suids") final List<String> suids) {
+        return this.customerService.findAllBySuid(suids);
+    }
+
+    @PostMapping("batch-get")
+    @Operation(summary = "Get customers by the suids in the body, missing ones are reported inline")
+    public Flux<BatchGetResponseDTO<CustomerResponseDTO>> batchGet(@RequestBody final List<String> suids) {
+        return this.customerService.findAllBySuid(suids);
+    }
+
     @GetMapping("{suid}")
     @Operation(summary = "Get customer by suid")
     public Mono<CustomerResponseDTO> findBySuid(@PathVariable("suid") final String suid) {
@@ -34,8 +54,21 @@ public class CustomerController {
 
     @PatchMapping
     @Operation(summary = "Update a new customer")
-    public Mono<CustomerResponseDTO> update(@RequestBody final CustomerUpdateRequestDTO dto) {
-        return this.customerService.update(dto);
+    public Mono<CustomerResponseDTO> update(@RequestBody final CustomerUpdateRequestDTO dto,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+        return this.customerService.update(dto, IfMatch.version(ifMatch));
+    }
+
+    @PostMapping(value = "bulk", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Create customers in bulk, one result per item in request order")
+    public Flux<BulkResultDTO> createAll(@RequestBody final Flux<CustomerInsertRequestDTO> dtos) {
+        return this.customerService.createAll(dtos);
+    }
+
+    @PatchMapping(value = "bulk", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Update customers in bulk, one result per item in request order")
+    public Flux<BulkResultDTO> updateAll(@RequestBody final Flux<CustomerUpdateRequestDTO> dtos) {
+        return this.customerService.updateAll(dtos);
     }
 
     @DeleteMapping("{suid}")
@@ -45,4 +78,10 @@ public class CustomerController {
         return this.customerService.deleteBySuid(suid);
     }
 
+    @DeleteMapping(value = "{suid}", params = "cascade=true", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Delete a customer and all of their orders, streaming the progress")
+    public Flux<CustomerDeleteProgressDTO> deleteCascade(@PathVariable("suid") final String suid) {
+        return this.customerService.deleteBySuidCascade(suid);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package io.good.food.controller;
+
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.server.ServerWebInputException;
+
+final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    // The header holds an entity tag, so "3" and W/"3" are read as version 3 and * as any version
+    static Long version(final String ifMatch) {
+        return Option.of(ifMatch)
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .filter(t -> !"*".equals(t))
+                .map(t -> StringUtils.removeStart(t, "W/"))
+                .map(t -> StringUtils.unwrap(t, '"'))
+                .map(t -> Try.of(() -> Long.valueOf(t)).getOrElseThrow(() -> new ServerWebInputException("Invalid If-Match version " + ifMatch)))
+                .getOrNull();
+    }
+}
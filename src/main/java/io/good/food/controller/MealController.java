@@ -2,14 +2,24 @@ package io.good.food.controller;
 
 import io.good.food.dto.request.MealInsertRequestDTO;
 import io.good.food.dto.request.MealUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.dto.response.BulkResultDTO;
 import io.good.food.dto.response.MealResponseDTO;
+import io.good.food.dto.response.PageResponseDTO;
 import io.good.food.service.MealService;
+import io.good.food.service.PageService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.vavr.control.Option;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("meals")
 public class MealController {
@@ -22,8 +32,22 @@ public class MealController {
 
     @GetMapping
     @Operation(summary = "Get all meals")
-    public Flux<MealResponseDTO> findAll() {
-        return this.mealService.findAll();
+    public Mono<ResponseEntity<Flux<MealResponseDTO>>> findAll(@RequestParam(value = "token", required = false) final String token,
+                                                               @RequestParam(value = "size", required = false) final Integer size) {
+        return PageService.isPaged(token, size) ? this.mealService.findAll(token, size).map(this::page)
+                : Mono.just(ResponseEntity.ok(this.mealService.findAll()));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get meals by ids, missing ones are reported inline")
+    public Flux<BatchGetResponseDTO<MealResponseDTO>> findAllById(@RequestParam("ids") final List<String> ids) {
+        return this.mealService.findAllById(ids);
+    }
+
+    @PostMapping("batch-get")
+    @Operation(summary = "Get meals by the ids in the body, missing ones are reported inline")
+    public Flux<BatchGetResponseDTO<MealResponseDTO>> batchGet(@RequestBody final List<String> ids) {
+        return this.mealService.findAllById(ids);
     }
 
     @GetMapping("{id}")
@@ -41,8 +65,21 @@ public class MealController {
 
     @PatchMapping
     @Operation(summary = "Update a new meal")
-    public Mono<MealResponseDTO> update(@RequestBody final MealUpdateRequestDTO dto) {
-        return this.mealService.update(dto);
+    public Mono<MealResponseDTO> update(@RequestBody final MealUpdateRequestDTO dto,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+        return this.mealService.update(dto, IfMatch.version(ifMatch));
+    }
+
+    @PostMapping(value = "bulk", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Create meals in bulk, one result per item in request order")
+    public Flux<BulkResultDTO> createAll(@RequestBody final Flux<MealInsertRequestDTO> dtos) {
+        return this.mealService.createAll(dtos);
+    }
+
+    @PatchMapping(value = "bulk", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Update meals in bulk, one result per item in request order")
+    public Flux<BulkResultDTO> updateAll(@RequestBody final Flux<MealUpdateRequestDTO> dtos) {
+        return this.mealService.updateAll(dtos);
     }
 
     @DeleteMapping("{id}")
@@ -52,4 +89,11 @@ public class MealController {
         return this.mealService.delete(id);
     }
 
+    private ResponseEntity<Flux<MealResponseDTO>> page(final PageResponseDTO<MealResponseDTO> page) {
+        final var response = ResponseEntity.ok();
+        Option.of(page.getNext()).forEach(next -> response.header(PageService.NEXT_PAGE_TOKEN, next));
+
+        return response.body(Flux.fromIterable(page.getContent()));
+    }
+
 }
\ No newline at end of file
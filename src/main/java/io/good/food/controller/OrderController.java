@@ -1,50 +1,121 @@
 package io.good.food.controller;
 
+import io.good.food.configuration.WebConfiguration;
+import io.good.food.dto.domain.MealDTO;
+import io.good.food.dto.request.MealQuantityRequestDTO;
 import io.good.food.dto.request.OrderInsertRequestDTO;
 import io.good.food.dto.request.OrderUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.dto.response.BulkResultDTO;
 import io.good.food.dto.response.OrderResponseDTO;
+import io.good.food.dto.response.OrderStatusEventDTO;
+import io.good.food.dto.response.PageResponseDTO;
 import io.good.food.dto.type.OrderStatusType;
 import io.good.food.service.OrderService;
+import io.good.food.service.PageService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.vavr.control.Option;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+
 @RestController
 @RequestMapping("orders")
 public class OrderController {
 
     private final OrderService orderService;
 
-    public OrderController(final OrderService orderService) {
+    private final Duration heartbeat;
+
+    public OrderController(final OrderService orderService,
+                           @Value("${order.status-feed.heartbeat:15000}") final Long heartbeat) {
         this.orderService = orderService;
+        this.heartbeat = Duration.ofMillis(heartbeat);
     }
 
     @GetMapping
     @Operation(summary = "Get all orders")
-    public Flux<OrderResponseDTO> findAll() {
+    public Mono<ResponseEntity<Flux<OrderResponseDTO>>> findAll(@RequestParam(value = "token", required = false) final String token,
+                                                                @RequestParam(value = "size", required = false) final Integer size) {
+        return PageService.isPaged(token, size) ? this.orderService.findAll(token, size).map(this::page)
+                : Mono.just(ResponseEntity.ok(this.orderService.findAll()));
+    }
+
+    @GetMapping(produces = {WebConfiguration.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Stream all orders as they are read")
+    public Flux<OrderResponseDTO> streamAll() {
         return this.orderService.findAll();
     }
 
     @GetMapping("customers/{customerId}")
     @Operation(summary = "Get orders by customer id")
-    public Flux<OrderResponseDTO> findByCustomerId(@PathVariable("customerId") final String customerId) {
+    public Mono<ResponseEntity<Flux<OrderResponseDTO>>> findByCustomerId(@PathVariable("customerId") final String customerId,
+                                                                         @RequestParam(value = "token", required = false) final String token,
+                                                                         @RequestParam(value = "size", required = false) final Integer size) {
+        return PageService.isPaged(token, size) ? this.orderService.findByCustomerId(customerId, token, size).map(this::page)
+                : Mono.just(ResponseEntity.ok(this.orderService.findByCustomerId(customerId)));
+    }
+
+    @GetMapping(value = "customers/{customerId}", produces = {WebConfiguration.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Stream orders by customer id as they are read")
+    public Flux<OrderResponseDTO> streamByCustomerId(@PathVariable("customerId") final String customerId) {
         return this.orderService.findByCustomerId(customerId);
     }
 
     @GetMapping("status/{status}")
     @Operation(summary = "Get orders by status")
-    public Flux<OrderResponseDTO> findByStatus(@PathVariable("status") final OrderStatusType status) {
+    public Mono<ResponseEntity<Flux<OrderResponseDTO>>> findByStatus(@PathVariable("status") final OrderStatusType status,
+                                                                     @RequestParam(value = "token", required = false) final String token,
+                                                                     @RequestParam(value = "size", required = false) final Integer size) {
+        return PageService.isPaged(token, size) ? this.orderService.findByStatus(status, token, size).map(this::page)
+                : Mono.just(ResponseEntity.ok(this.orderService.findByStatus(status)));
+    }
+
+    @GetMapping(value = "status/{status}", produces = {WebConfiguration.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Stream orders by status as they are read")
+    public Flux<OrderResponseDTO> streamByStatus(@PathVariable("status") final OrderStatusType status) {
         return this.orderService.findByStatus(status);
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get orders by ids, missing ones are reported inline")
+    public Flux<BatchGetResponseDTO<OrderResponseDTO>> findAllById(@RequestParam("ids") final List<String> ids) {
+        return this.orderService.findAllById(ids);
+    }
+
+    @PostMapping("batch-get")
+    @Operation(summary = "Get orders by the ids in the body, missing ones are reported inline")
+    public Flux<BatchGetResponseDTO<OrderResponseDTO>> batchGet(@RequestBody final List<String> ids) {
+        return this.orderService.findAllById(ids);
+    }
+
     @GetMapping("{id}")
     @Operation(summary = "Get meal by id")
     public Mono<OrderResponseDTO> findById(@PathVariable("id") final String id) {
         return this.orderService.findById(id);
     }
 
+    @GetMapping(value = "{id}/status", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Watch the status of an order, starting with the current one")
+    public Flux<ServerSentEvent<OrderStatusEventDTO>> watchById(@PathVariable("id") final String id) {
+        return this.events(this.orderService.watchById(id));
+    }
+
+    @GetMapping(value = "customers/{customerId}/status", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Watch the status changes of the orders of a customer")
+    public Flux<ServerSentEvent<OrderStatusEventDTO>> watchByCustomerId(@PathVariable("customerId") final String customerId) {
+        return this.events(this.orderService.watchByCustomerId(customerId));
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create a new order")
@@ -54,8 +125,45 @@ public class OrderController {
 
     @PatchMapping
     @Operation(summary = "Update a new order")
-    public Mono<OrderResponseDTO> update(@RequestBody final OrderUpdateRequestDTO dto) {
-        return this.orderService.update(dto);
+    public Mono<OrderResponseDTO> update(@RequestBody final OrderUpdateRequestDTO dto,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+        return this.orderService.update(dto, IfMatch.version(ifMatch));
+    }
+
+    @PostMapping(value = "bulk", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Create orders in bulk, one result per item in request order")
+    public Flux<BulkResultDTO> createAll(@RequestBody final Flux<OrderInsertRequestDTO> dtos) {
+        return this.orderService.createAll(dtos);
+    }
+
+    @PatchMapping(value = "bulk", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    @Operation(summary = "Update orders in bulk, one result per item in request order")
+    public Flux<BulkResultDTO> updateAll(@RequestBody final Flux<OrderUpdateRequestDTO> dtos) {
+        return this.orderService.updateAll(dtos);
+    }
+
+    @PostMapping("{id}/meals")
+    @Operation(summary = "Add meals to an order")
+    public Mono<OrderResponseDTO> addMeals(@PathVariable("id") final String id, @RequestBody final List<MealDTO> meals) {
+        return this.orderService.addMeals(id, meals);
+    }
+
+    @PatchMapping("{id}/meals/{mealId}")
+    @Operation(summary = "Change the quantity of an order meal")
+    public Mono<OrderResponseDTO> changeMealQuantity(@PathVariable("id") final String id,
+                                                     @PathVariable("mealId") final String mealId,
+                                                     @RequestBody final MealQuantityRequestDTO dto) {
+        final var meal = new MealDTO();
+        meal.setId(mealId);
+        meal.setQuantity(dto.getQuantity());
+
+        return this.orderService.changeMealQuantity(id, List.of(meal));
+    }
+
+    @DeleteMapping("{id}/meals/{mealId}")
+    @Operation(summary = "Remove a meal from an order")
+    public Mono<OrderResponseDTO> removeMeal(@PathVariable("id") final String id, @PathVariable("mealId") final String mealId) {
+        return this.orderService.removeMeals(id, List.of(mealId));
     }
 
     @DeleteMapping("{id}")
@@ -65,4 +173,20 @@ public class OrderController {
         return this.orderService.delete(id);
     }
 
+    private Flux<ServerSentEvent<OrderStatusEventDTO>> events(final Flux<OrderStatusEventDTO> events) {
+        // Idle feeds still write a comment now and then, so proxies keep the connection open
+        final var heartbeats = Flux.interval(this.heartbeat)
+                .map(tick -> ServerSentEvent.<OrderStatusEventDTO>builder().comment("heartbeat").build());
+
+        return events.map(t -> ServerSentEvent.builder(t).event(String.valueOf(t.getAction())).build())
+                .mergeWith(heartbeats);
+    }
+
+    private ResponseEntity<Flux<OrderResponseDTO>> page(final PageResponseDTO<OrderResponseDTO> page) {
+        final var response = ResponseEntity.ok();
+        Option.of(page.getNext()).forEach(next -> response.header(PageService.NEXT_PAGE_TOKEN, next));
+
+        return response.body(Flux.fromIterable(page.getContent()));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package io.good.food.dto.request;
+
+public class MealQuantityRequestDTO {
+
+    private String quantity;
+
+    public String getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(String quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,34 @@
+package io.good.food.dto.response;
+
+public class BatchGetResponseDTO<T> {
+
+    private String key;
+
+    private T value;
+
+    private String error;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public void setValue(T value) {
+        this.value = value;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
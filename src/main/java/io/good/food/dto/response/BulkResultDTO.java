@@ -0,0 +1,34 @@
+package io.good.food.dto.response;
+
+public class BulkResultDTO {
+
+    private Long index;
+
+    private String id;
+
+    private String error;
+
+    public Long getIndex() {
+        return index;
+    }
+
+    public void setIndex(Long index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
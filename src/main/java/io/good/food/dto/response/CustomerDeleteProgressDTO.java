@@ -0,0 +1,34 @@
+package io.good.food.dto.response;
+
+public class CustomerDeleteProgressDTO {
+
+    private String suid;
+
+    private Long deletedOrders;
+
+    private Boolean completed;
+
+    public String getSuid() {
+        return suid;
+    }
+
+    public void setSuid(String suid) {
+        this.suid = suid;
+    }
+
+    public Long getDeletedOrders() {
+        return deletedOrders;
+    }
+
+    public void setDeletedOrders(Long deletedOrders) {
+        this.deletedOrders = deletedOrders;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+}
@@ -14,6 +14,8 @@ public class CustomerResponseDTO {
 
     private String surname;
 
+    private Long version;
+
     public String getId() {
         return id;
     }
@@ -53,4 +55,12 @@ public class CustomerResponseDTO {
     public void setSurname(String surname) {
         this.surname = surname;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -16,6 +16,8 @@ public class MealResponseDTO {
 
     private MealType type;
 
+    private Long version;
+
     public String getId() {
         return id;
     }
@@ -55,4 +57,12 @@ public class MealResponseDTO {
     public void setType(MealType type) {
         this.type = type;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -18,6 +18,8 @@ public class OrderResponseDTO {
 
     private OrderStatusType status;
 
+    private Long version;
+
     public String getId() {
         return id;
     }
@@ -57,4 +59,12 @@ public class OrderResponseDTO {
     public void setStatus(OrderStatusType status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,47 @@
+package io.good.food.dto.response;
+
+import io.good.food.dto.type.ActionType;
+import io.good.food.dto.type.OrderStatusType;
+
+public class OrderStatusEventDTO {
+
+    private String id;
+
+    private String customerId;
+
+    private OrderStatusType status;
+
+    private ActionType action;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public OrderStatusType getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatusType status) {
+        this.status = status;
+    }
+
+    public ActionType getAction() {
+        return action;
+    }
+
+    public void setAction(ActionType action) {
+        this.action = action;
+    }
+}
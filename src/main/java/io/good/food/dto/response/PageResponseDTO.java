@@ -0,0 +1,26 @@
+package io.good.food.dto.response;
+
+import java.util.List;
+
+public class PageResponseDTO<T> {
+
+    private List<T> content;
+
+    private String next;
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -0,0 +1,56 @@
+package io.good.food.dto.stream;
+
+import io.good.food.dto.type.ActionType;
+
+public class OrderBatchResultDTO {
+
+    private Integer index;
+
+    private String id;
+
+    private ActionType action;
+
+    private String error;
+
+    private Boolean conflict;
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public ActionType getAction() {
+        return action;
+    }
+
+    public void setAction(ActionType action) {
+        this.action = action;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Boolean getConflict() {
+        return conflict;
+    }
+
+    public void setConflict(Boolean conflict) {
+        this.conflict = conflict;
+    }
+}
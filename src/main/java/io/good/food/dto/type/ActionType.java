@@ -11,7 +11,10 @@ public enum ActionType {
 
     CREATE,
     UPDATE,
-    DELETE;
+    DELETE,
+    ADD_MEALS,
+    REMOVE_MEALS,
+    CHANGE_MEAL_QUANTITY;
 
     private static final Map<String, ActionType> CACHE = Stream.of(values())
             .collect(Collectors.toMap(ActionType::toString, Function.identity()));
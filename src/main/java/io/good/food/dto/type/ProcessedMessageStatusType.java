@@ -0,0 +1,8 @@
+package io.good.food.dto.type;
+
+public enum ProcessedMessageStatusType {
+
+    PENDING,
+    DONE
+
+}
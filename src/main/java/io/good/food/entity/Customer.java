@@ -1,6 +1,7 @@
 package io.good.food.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -14,6 +15,9 @@ public class Customer {
 
     private LocalDateTime creationDate;
 
+    @Indexed
+    private LocalDateTime modificationDate;
+
     private String name;
 
     @Indexed(unique = true)
@@ -21,6 +25,9 @@ public class Customer {
 
     private String surname;
 
+    @Version
+    private Long version;
+
     public String getId() {
         return id;
     }
@@ -37,6 +44,14 @@ public class Customer {
         this.creationDate = creationDate;
     }
 
+    public LocalDateTime getModificationDate() {
+        return modificationDate;
+    }
+
+    public void setModificationDate(LocalDateTime modificationDate) {
+        this.modificationDate = modificationDate;
+    }
+
     public String getName() {
         return name;
     }
@@ -60,4 +75,12 @@ public class Customer {
     public void setSurname(String surname) {
         this.surname = surname;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -2,11 +2,14 @@ package io.good.food.entity;
 
 import io.good.food.dto.type.MealType;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "meal")
+@CompoundIndex(name = "creation_date_index", def = "{'creationDate': 1, '_id': 1}")
 public class Meal {
 
     @Id
@@ -20,6 +23,9 @@ public class Meal {
 
     private MealType type;
 
+    @Version
+    private Long version;
+
     public String getId() {
         return id;
     }
@@ -59,4 +65,12 @@ public class Meal {
     public void setType(MealType type) {
         this.type = type;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
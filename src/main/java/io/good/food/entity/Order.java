@@ -3,6 +3,9 @@ package io.good.food.entity;
 import io.good.food.dto.domain.MealDTO;
 import io.good.food.dto.type.OrderStatusType;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -10,6 +13,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "order")
+@CompoundIndexes({
+        @CompoundIndex(name = "creation_date_index", def = "{'creationDate': 1, '_id': 1}"),
+        @CompoundIndex(name = "customer_creation_date_index", def = "{'customerId': 1, 'creationDate': 1, '_id': 1}"),
+        @CompoundIndex(name = "status_creation_date_index", def = "{'status': 1, 'creationDate': 1, '_id': 1}")
+})
 public class Order {
 
     @Id
@@ -24,6 +32,14 @@ public class Order {
 
     private OrderStatusType status;
 
+    @Version
+    private Long version;
+
+    @Indexed(name = "message_id_index", unique = true, sparse = true)
+    private String messageId;
+
+    private List<String> appliedMessageIds;
+
     public String getId() {
         return id;
     }
@@ -63,4 +79,28 @@ public class Order {
     public void setStatus(OrderStatusType status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public List<String> getAppliedMessageIds() {
+        return appliedMessageIds;
+    }
+
+    public void setAppliedMessageIds(List<String> appliedMessageIds) {
+        this.appliedMessageIds = appliedMessageIds;
+    }
 }
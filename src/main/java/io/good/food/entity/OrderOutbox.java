@@ -0,0 +1,86 @@
+package io.good.food.entity;
+
+import io.good.food.dto.stream.OrderOutputDTO;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "order_outbox")
+@CompoundIndex(name = "pending_index", def = "{'sentDate': 1, 'creationDate': 1}")
+public class OrderOutbox {
+
+    @Id
+    private String id;
+
+    private LocalDateTime creationDate;
+
+    private String orderId;
+
+    private OrderOutputDTO event;
+
+    private String owner;
+
+    private LocalDateTime leaseDate;
+
+    @Indexed(name = "expire_after_sent_index", expireAfterSeconds = 86400)
+    private LocalDateTime sentDate;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getCreationDate() {
+        return creationDate;
+    }
+
+    public void setCreationDate(LocalDateTime creationDate) {
+        this.creationDate = creationDate;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public OrderOutputDTO getEvent() {
+        return event;
+    }
+
+    public void setEvent(OrderOutputDTO event) {
+        this.event = event;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getLeaseDate() {
+        return leaseDate;
+    }
+
+    public void setLeaseDate(LocalDateTime leaseDate) {
+        this.leaseDate = leaseDate;
+    }
+
+    public LocalDateTime getSentDate() {
+        return sentDate;
+    }
+
+    public void setSentDate(LocalDateTime sentDate) {
+        this.sentDate = sentDate;
+    }
+}
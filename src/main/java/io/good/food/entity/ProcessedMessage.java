@@ -0,0 +1,54 @@
+package io.good.food.entity;
+
+import io.good.food.dto.type.ProcessedMessageStatusType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "processed_message")
+public class ProcessedMessage {
+
+    @Id
+    private String id;
+
+    @Indexed(name="expire_after_seconds_index", expireAfterSeconds = 86400)
+    private LocalDateTime creationDate;
+
+    private ProcessedMessageStatusType status;
+
+    private LocalDateTime leaseDate;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getCreationDate() {
+        return creationDate;
+    }
+
+    public void setCreationDate(LocalDateTime creationDate) {
+        this.creationDate = creationDate;
+    }
+
+    public ProcessedMessageStatusType getStatus() {
+        return status;
+    }
+
+    public void setStatus(ProcessedMessageStatusType status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getLeaseDate() {
+        return leaseDate;
+    }
+
+    public void setLeaseDate(LocalDateTime leaseDate) {
+        this.leaseDate = leaseDate;
+    }
+}
@@ -0,0 +1,13 @@
+package io.good.food.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends BusinessException {
+
+    public ConflictException(final String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package io.good.food.exception;
+
+public class RetryableException extends RuntimeException {
+
+    public RetryableException(final String message) {
+        super(message);
+    }
+
+}
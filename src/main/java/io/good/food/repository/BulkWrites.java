@@ -0,0 +1,65 @@
+package io.good.food.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+final class BulkWrites {
+
+    private BulkWrites() {
+    }
+
+    // Unordered, so one failing write does not stop the rest; the failures come back by position
+    static Mono<Map<Integer, String>> execute(final ReactiveMongoOperations reactiveMongoOperations,
+                                              final Class<?> entityClass,
+                                              final List<WriteModel<Document>> models) {
+        return write(reactiveMongoOperations, entityClass, models).map(Tuple2::_2);
+    }
+
+    // Same as execute, along with the counts of the writes that went through
+    static Mono<Tuple2<BulkWriteResult, Map<Integer, String>>> write(final ReactiveMongoOperations reactiveMongoOperations,
+                                                                     final Class<?> entityClass,
+                                                                     final List<WriteModel<Document>> models) {
+        if(models.isEmpty()) {
+            return Mono.just(Tuple.of(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of()), Map.of()));
+        }
+
+        return reactiveMongoOperations.execute(entityClass, collection -> collection.bulkWrite(models, new BulkWriteOptions().ordered(false)))
+                .next()
+                .map(result -> Tuple.of(result, Map.<Integer, String>of()))
+                .onErrorResume(BulkWrites::isBulkWriteFailure, throwable -> Mono.just(Tuple.of(getException(throwable).getWriteResult(), getWriteErrors(throwable))));
+    }
+
+    static Document toDocument(final ReactiveMongoOperations reactiveMongoOperations, final Object entity) {
+        final var document = new Document();
+        reactiveMongoOperations.getConverter().write(entity, document);
+
+        return document;
+    }
+
+    private static boolean isBulkWriteFailure(final Throwable throwable) {
+        return ExceptionUtils.indexOfType(throwable, MongoBulkWriteException.class) >= 0;
+    }
+
+    private static MongoBulkWriteException getException(final Throwable throwable) {
+        final var index = ExceptionUtils.indexOfType(throwable, MongoBulkWriteException.class);
+        return (MongoBulkWriteException) ExceptionUtils.getThrowableList(throwable).get(index);
+    }
+
+    private static Map<Integer, String> getWriteErrors(final Throwable throwable) {
+        return getException(throwable).getWriteErrors().stream()
+                .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage, (first, second) -> first));
+    }
+}
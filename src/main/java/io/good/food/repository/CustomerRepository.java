@@ -2,10 +2,15 @@ package io.good.food.repository;
 
 import io.good.food.entity.Customer;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface CustomerRepository extends ReactiveMongoRepository<Customer, String> {
+import java.util.Collection;
+
+public interface CustomerRepository extends ReactiveMongoRepository<Customer, String>, CustomerRepositoryCustom {
 
     Mono<Customer> findBySuid(final String suid);
 
+    Flux<Customer> findBySuidIn(final Collection<String> suids);
+
 }
@@ -0,0 +1,24 @@
+package io.good.food.repository;
+
+import io.good.food.entity.Customer;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface CustomerRepositoryCustom {
+
+    Mono<Customer> findAndModify(final String id, final Long version, final Update update);
+
+    Mono<Customer> findAndDeleteBySuid(final String suid);
+
+    Flux<String> findAllSuids();
+
+    Flux<String> findSuidsModifiedSince(final LocalDateTime modificationDate);
+
+    Mono<Map<Integer, String>> insertAll(final List<Customer> customers);
+
+}
@@ -0,0 +1,65 @@
+package io.good.food.repository;
+
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.WriteModel;
+import io.good.food.entity.Customer;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class CustomerRepositoryCustomImpl implements CustomerRepositoryCustom {
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+
+    public CustomerRepositoryCustomImpl(final ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @Override
+    public Mono<Customer> findAndModify(final String id, final Long version, final Update update) {
+        return VersionedUpdates.findAndModify(this.reactiveMongoOperations, Customer.class, id, version, update);
+    }
+
+    @Override
+    public Mono<Customer> findAndDeleteBySuid(final String suid) {
+        return this.reactiveMongoOperations.findAndRemove(Query.query(Criteria.where("suid").is(suid)), Customer.class);
+    }
+
+    @Override
+    public Flux<String> findAllSuids() {
+        final var query = new Query();
+        query.fields().include("suid").exclude("_id");
+
+        return this.reactiveMongoOperations.find(query, Customer.class)
+                .filter(t -> t.getSuid() != null)
+                .map(Customer::getSuid);
+    }
+
+    @Override
+    public Flux<String> findSuidsModifiedSince(final LocalDateTime modificationDate) {
+        final var query = Query.query(Criteria.where("modificationDate").gte(modificationDate));
+        query.fields().include("suid").exclude("_id");
+
+        return this.reactiveMongoOperations.find(query, Customer.class)
+                .filter(t -> t.getSuid() != null)
+                .map(Customer::getSuid);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertAll(final List<Customer> customers) {
+        final var models = customers.stream()
+                .<WriteModel<Document>>map(t -> new InsertOneModel<>(BulkWrites.toDocument(this.reactiveMongoOperations, t)))
+                .collect(Collectors.toList());
+
+        return BulkWrites.execute(this.reactiveMongoOperations, Customer.class, models);
+    }
+}
@@ -0,0 +1,18 @@
+package io.good.food.repository;
+
+import io.good.food.entity.Meal;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+public interface MealRepositoryCustom {
+
+    Mono<Meal> findAndModify(final String id, final Long version, final Update update);
+
+    Mono<Meal> findAndDelete(final String id);
+
+    Mono<Map<Integer, String>> insertAll(final List<Meal> meals);
+
+}
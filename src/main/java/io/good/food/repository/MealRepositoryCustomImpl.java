@@ -0,0 +1,43 @@
+package io.good.food.repository;
+
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.WriteModel;
+import io.good.food.entity.Meal;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MealRepositoryCustomImpl implements MealRepositoryCustom {
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+
+    public MealRepositoryCustomImpl(final ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @Override
+    public Mono<Meal> findAndModify(final String id, final Long version, final Update update) {
+        return VersionedUpdates.findAndModify(this.reactiveMongoOperations, Meal.class, id, version, update);
+    }
+
+    @Override
+    public Mono<Meal> findAndDelete(final String id) {
+        return this.reactiveMongoOperations.findAndRemove(Query.query(Criteria.where("id").is(id)), Meal.class);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertAll(final List<Meal> meals) {
+        final var models = meals.stream()
+                .<WriteModel<Document>>map(t -> new InsertOneModel<>(BulkWrites.toDocument(this.reactiveMongoOperations, t)))
+                .collect(Collectors.toList());
+
+        return BulkWrites.execute(this.reactiveMongoOperations, Meal.class, models);
+    }
+}
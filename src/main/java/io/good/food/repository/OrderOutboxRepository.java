@@ -0,0 +1,8 @@
+package io.good.food.repository;
+
+import io.good.food.entity.OrderOutbox;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface OrderOutboxRepository extends ReactiveMongoRepository<OrderOutbox, String>, OrderOutboxRepositoryCustom {
+
+}
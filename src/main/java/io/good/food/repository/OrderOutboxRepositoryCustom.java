@@ -0,0 +1,16 @@
+package io.good.food.repository;
+
+import io.good.food.entity.OrderOutbox;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface OrderOutboxRepositoryCustom {
+
+    Flux<OrderOutbox> claim(final String owner, final LocalDateTime now, final LocalDateTime leaseDate, final Integer limit);
+
+    Mono<Long> markSent(final Collection<String> ids);
+
+}
@@ -0,0 +1,94 @@
+package io.good.food.repository;
+
+import io.good.food.entity.OrderOutbox;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class OrderOutboxRepositoryCustomImpl implements OrderOutboxRepositoryCustom {
+
+    // Events written in the same millisecond keep the order of their ids
+    private static final Comparator<OrderOutbox> ORDER = Comparator.comparing(OrderOutbox::getCreationDate).thenComparing(OrderOutbox::getId);
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+
+    public OrderOutboxRepositoryCustomImpl(final ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @Override
+    public Flux<OrderOutbox> claim(final String owner, final LocalDateTime now, final LocalDateTime leaseDate, final Integer limit) {
+        final var candidates = Query.query(this.claimable(now))
+                .with(Sort.by("creationDate", "id"))
+                .limit(limit);
+        candidates.fields().include("id");
+
+        // The update checks the lease again, so of two relays reading the same rows each row goes to only one of them
+        return this.reactiveMongoOperations.find(candidates, OrderOutbox.class)
+                .map(OrderOutbox::getId)
+                .collectList()
+                .filter(ids -> !ids.isEmpty())
+                .flatMap(ids -> this.reactiveMongoOperations.updateMulti(Query.query(Criteria.where("id").in(ids)).addCriteria(this.claimable(now)),
+                        Update.update("owner", owner).set("leaseDate", leaseDate), OrderOutbox.class))
+                .thenMany(this.reactiveMongoOperations.find(Query.query(Criteria.where("owner").is(owner).and("sentDate").is(null))
+                        .with(Sort.by("creationDate", "id")), OrderOutbox.class))
+                .collectList()
+                .flatMapMany(claimed -> this.inOrder(owner, claimed));
+    }
+
+    @Override
+    public Mono<Long> markSent(final Collection<String> ids) {
+        if(ids.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        final var query = Query.query(Criteria.where("id").in(ids));
+        final var update = Update.update("sentDate", LocalDateTime.now());
+
+        return this.reactiveMongoOperations.updateMulti(query, update, OrderOutbox.class)
+                .map(t -> t.getModifiedCount());
+    }
+
+    private Flux<OrderOutbox> inOrder(final String owner, final List<OrderOutbox> claimed) {
+        if(claimed.isEmpty()) {
+            return Flux.empty();
+        }
+
+        final var orderIds = claimed.stream()
+                .map(OrderOutbox::getOrderId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        final var others = Query.query(Criteria.where("orderId").in(orderIds).and("sentDate").is(null).and("owner").ne(owner));
+        others.fields().include("orderId").include("creationDate");
+
+        // An event of the same order that is older and not ours has to go out first, so the newer ones are left for a later run
+        return this.reactiveMongoOperations.find(others, OrderOutbox.class)
+                .collect(Collectors.toMap(OrderOutbox::getOrderId, Function.identity(), BinaryOperator.minBy(ORDER)))
+                .flatMapMany(oldest -> Flux.fromIterable(claimed).filter(t -> !this.isBlocked(t, oldest)));
+    }
+
+    private boolean isBlocked(final OrderOutbox outbox, final Map<String, OrderOutbox> oldest) {
+        final var other = oldest.get(outbox.getOrderId());
+        return other != null && ORDER.compare(other, outbox) < 0;
+    }
+
+    private Criteria claimable(final LocalDateTime now) {
+        return Criteria.where("sentDate").is(null)
+                .orOperator(Criteria.where("leaseDate").is(null), Criteria.where("leaseDate").lt(now));
+    }
+}
@@ -2,12 +2,39 @@ package io.good.food.repository;
 
 import io.good.food.dto.type.OrderStatusType;
 import io.good.food.entity.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-public interface OrderRepository extends ReactiveMongoRepository<Order, String> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface OrderRepository extends ReactiveMongoRepository<Order, String>, OrderRepositoryCustom {
 
     Flux<Order> findByCustomerId(final String customerId);
 
     Flux<Order> findByStatus(final OrderStatusType status);
+
+    Mono<Order> findByMessageId(final String messageId);
+
+    Mono<Order> findByIdAndAppliedMessageIds(final String id, final String messageId);
+
+    Flux<Order> findByMessageIdIn(final Collection<String> messageIds);
+
+    Flux<Order> findAllBy(final Pageable pageable);
+
+    Flux<Order> findByCustomerId(final String customerId, final Pageable pageable);
+
+    Flux<Order> findByStatus(final OrderStatusType status, final Pageable pageable);
+
+    @Query("{ $or: [ { 'creationDate': { $gt: ?0 } }, { 'creationDate': ?0, '_id': { $gt: ?1 } } ] }")
+    Flux<Order> findAllAfter(final LocalDateTime creationDate, final Object id, final Pageable pageable);
+
+    @Query("{ 'customerId': ?0, $or: [ { 'creationDate': { $gt: ?1 } }, { 'creationDate': ?1, '_id': { $gt: ?2 } } ] }")
+    Flux<Order> findByCustomerIdAfter(final String customerId, final LocalDateTime creationDate, final Object id, final Pageable pageable);
+
+    @Query("{ 'status': ?0, $or: [ { 'creationDate': { $gt: ?1 } }, { 'creationDate': ?1, '_id': { $gt: ?2 } } ] }")
+    Flux<Order> findByStatusAfter(final OrderStatusType status, final LocalDateTime creationDate, final Object id, final Pageable pageable);
 }
@@ -0,0 +1,35 @@
+package io.good.food.repository;
+
+import io.good.food.dto.domain.MealDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.entity.Order;
+import io.vavr.Tuple2;
+import io.vavr.Tuple3;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface OrderRepositoryCustom {
+
+    String CONFLICT = "Order was modified by another request";
+
+    int APPLIED_MESSAGE_IDS = 100;
+
+    Mono<Map<Integer, String>> bulkWrite(final List<Tuple3<ActionType, Order, Long>> operations);
+
+    Mono<Order> findAndModify(final String id, final Long version, final Update update);
+
+    Mono<Order> findAndDelete(final String id);
+
+    Mono<Long> deleteAllById(final Collection<String> ids);
+
+    Mono<Order> pushMeals(final String id, final List<MealDTO> meals, final String messageId);
+
+    Mono<Tuple2<Order, List<MealDTO>>> pullMeals(final String id, final Collection<String> mealIds, final String messageId);
+
+    Mono<Order> setMealQuantities(final String id, final List<MealDTO> meals, final String messageId);
+
+}
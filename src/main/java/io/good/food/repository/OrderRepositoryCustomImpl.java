@@ -0,0 +1,195 @@
+package io.good.food.repository;
+
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import io.good.food.dto.domain.MealDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.entity.Order;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.Tuple3;
+import io.vavr.control.Option;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+
+    public OrderRepositoryCustomImpl(final ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> bulkWrite(final List<Tuple3<ActionType, Order, Long>> operations) {
+        final var documents = operations.stream()
+                .map(t -> BulkWrites.toDocument(this.reactiveMongoOperations, t._2))
+                .collect(Collectors.toList());
+
+        final var models = IntStream.range(0, operations.size())
+                .mapToObj(i -> this.toWriteModel(operations.get(i), documents.get(i)))
+                .collect(Collectors.toList());
+
+        return BulkWrites.write(this.reactiveMongoOperations, Order.class, models)
+                .flatMap(t -> {
+                    final var versioned = IntStream.range(0, operations.size())
+                            .filter(i -> !Objects.equals(ActionType.CREATE, operations.get(i)._1) && !t._2.containsKey(i))
+                            .boxed()
+                            .collect(Collectors.toList());
+
+                    if(t._1.getMatchedCount() + t._1.getDeletedCount() >= versioned.size()) {
+                        return Mono.just(t._2);
+                    }
+
+                    return this.conflicts(operations, documents, versioned)
+                            .map(conflicts -> {
+                                final var errors = new HashMap<>(t._2);
+                                conflicts.forEach(i -> errors.put(i, CONFLICT));
+                                return errors;
+                            });
+                });
+    }
+
+    @Override
+    public Mono<Order> findAndModify(final String id, final Long version, final Update update) {
+        return VersionedUpdates.findAndModify(this.reactiveMongoOperations, Order.class, id, version, update);
+    }
+
+    @Override
+    public Mono<Order> findAndDelete(final String id) {
+        return this.reactiveMongoOperations.findAndRemove(Query.query(Criteria.where("id").is(id)), Order.class);
+    }
+
+    @Override
+    public Mono<Long> deleteAllById(final Collection<String> ids) {
+        return this.reactiveMongoOperations.remove(Query.query(Criteria.where("id").in(ids)), Order.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Order> pushMeals(final String id, final List<MealDTO> meals, final String messageId) {
+        final var update = new Update().push("meals").each(meals.toArray());
+
+        return this.findAndModify(Query.query(this.notApplied(id, messageId)), this.applied(update, messageId));
+    }
+
+    @Override
+    public Mono<Tuple2<Order, List<MealDTO>>> pullMeals(final String id, final Collection<String> mealIds, final String messageId) {
+        final var ids = mealIds.stream()
+                .map(this::toMealId)
+                .collect(Collectors.toList());
+
+        final var query = Query.query(this.notApplied(id, messageId).and("meals._id").in(ids));
+        final var update = this.applied(new Update().pull("meals", new Document("_id", new Document("$in", ids))), messageId);
+
+        // Only some of the ids may be in the order, the document before the pull tells which meals it removed
+        return this.reactiveMongoOperations.findAndModify(query, update.inc("version", 1), FindAndModifyOptions.options().returnNew(false), Order.class)
+                .map(order -> {
+                    final var removed = ids.stream().map(Object::toString).collect(Collectors.toSet());
+
+                    final var pulled = order.getMeals().stream()
+                            .filter(meal -> removed.contains(meal.getId()))
+                            .collect(Collectors.toList());
+
+                    order.setMeals(order.getMeals().stream()
+                            .filter(meal -> !removed.contains(meal.getId()))
+                            .collect(Collectors.toList()));
+                    order.setVersion(Option.of(order.getVersion()).getOrElse(0L) + 1);
+
+                    return Tuple.of(order, pulled);
+                });
+    }
+
+    @Override
+    public Mono<Order> setMealQuantities(final String id, final List<MealDTO> meals, final String messageId) {
+        // Every meal must be in the order and all quantities change in one write, each through its own array filter
+        final var ids = meals.stream()
+                .map(meal -> this.toMealId(meal.getId()))
+                .collect(Collectors.toList());
+
+        final var query = Query.query(this.notApplied(id, messageId).and("meals._id").all(ids));
+        final var update = this.applied(new Update(), messageId);
+
+        IntStream.range(0, meals.size()).forEach(i -> update
+                .set("meals.$[m" + i + "].quantity", meals.get(i).getQuantity())
+                .filterArray(Criteria.where("m" + i + "._id").is(ids.get(i))));
+
+        return this.findAndModify(query, update);
+    }
+
+    private Criteria notApplied(final String id, final String messageId) {
+        // An item message already applied to the order misses, so a retry after a lost event does not apply it twice
+        final var criteria = Criteria.where("id").is(id);
+        return messageId == null ? criteria : criteria.and("appliedMessageIds").ne(messageId);
+    }
+
+    private Update applied(final Update update, final String messageId) {
+        // Only the latest ids are kept, retries of older messages are long done
+        if(messageId != null) {
+            update.push("appliedMessageIds").slice(-APPLIED_MESSAGE_IDS).each(messageId);
+        }
+
+        return update;
+    }
+
+    private Mono<Order> findAndModify(final Query query, final Update update) {
+        return this.reactiveMongoOperations.findAndModify(query, update.inc("version", 1), FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    private Object toMealId(final String mealId) {
+        // Embedded meal ids are written as _id, converted to ObjectId like any other id
+        return ObjectId.isValid(mealId) ? new ObjectId(mealId) : mealId;
+    }
+
+    private Mono<List<Integer>> conflicts(final List<Tuple3<ActionType, Order, Long>> operations,
+                                          final List<Document> documents,
+                                          final List<Integer> versioned) {
+        // Bulk results only carry counts, so the missed writes are the ones whose document is not what was written
+        final var ids = versioned.stream()
+                .map(i -> documents.get(i).get("_id"))
+                .collect(Collectors.toList());
+
+        final var collection = this.reactiveMongoOperations.getCollectionName(Order.class);
+
+        return this.reactiveMongoOperations.find(Query.query(Criteria.where("_id").in(ids)), Document.class, collection)
+                .collectMap(t -> t.get("_id"))
+                .map(stored -> versioned.stream()
+                        .filter(i -> {
+                            final var current = stored.get(documents.get(i).get("_id"));
+                            return Objects.equals(ActionType.DELETE, operations.get(i)._1) ? current != null : !documents.get(i).equals(current);
+                        })
+                        .collect(Collectors.toList()));
+    }
+
+    private WriteModel<Document> toWriteModel(final Tuple3<ActionType, Order, Long> operation, final Document document) {
+        // Updates and deletes only apply to the version the batch read, like the single order findAndModify
+        final var filter = Filters.and(Filters.eq("_id", document.get("_id")), Filters.eq("version", operation._3));
+
+        switch (operation._1) {
+            case CREATE:
+                return new InsertOneModel<>(document);
+            case UPDATE:
+                return new ReplaceOneModel<>(filter, document);
+            default:
+                return new DeleteOneModel<>(filter);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package io.good.food.repository;
+
+import io.good.food.entity.ProcessedMessage;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ProcessedMessageRepository extends ReactiveMongoRepository<ProcessedMessage, String>, ProcessedMessageRepositoryCustom {
+
+}
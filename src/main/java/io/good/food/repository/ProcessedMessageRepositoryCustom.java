@@ -0,0 +1,14 @@
+package io.good.food.repository;
+
+import io.good.food.entity.ProcessedMessage;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ProcessedMessageRepositoryCustom {
+
+    Mono<ProcessedMessage> takeOver(final String id, final LocalDateTime now, final LocalDateTime leaseDate);
+
+    Mono<Long> complete(final String id);
+
+}
@@ -0,0 +1,39 @@
+package io.good.food.repository;
+
+import io.good.food.dto.type.ProcessedMessageStatusType;
+import io.good.food.entity.ProcessedMessage;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public class ProcessedMessageRepositoryCustomImpl implements ProcessedMessageRepositoryCustom {
+
+    private final ReactiveMongoOperations reactiveMongoOperations;
+
+    public ProcessedMessageRepositoryCustomImpl(final ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @Override
+    public Mono<ProcessedMessage> takeOver(final String id, final LocalDateTime now, final LocalDateTime leaseDate) {
+        final var query = Query.query(Criteria.where("id").is(id)
+                .and("status").is(ProcessedMessageStatusType.PENDING)
+                .and("leaseDate").lt(now));
+
+        return this.reactiveMongoOperations.findAndModify(query, Update.update("leaseDate", leaseDate), FindAndModifyOptions.options().returnNew(true), ProcessedMessage.class);
+    }
+
+    @Override
+    public Mono<Long> complete(final String id) {
+        final var query = Query.query(Criteria.where("id").is(id));
+        final var update = Update.update("status", ProcessedMessageStatusType.DONE).unset("leaseDate");
+
+        return this.reactiveMongoOperations.updateFirst(query, update, ProcessedMessage.class)
+                .map(t -> t.getModifiedCount());
+    }
+}
@@ -0,0 +1,28 @@
+package io.good.food.repository;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+final class VersionedUpdates {
+
+    private VersionedUpdates() {
+    }
+
+    // Bumps the version of the document; given an expected version, a document at any other version is not matched
+    static <T> Mono<T> findAndModify(final ReactiveMongoOperations reactiveMongoOperations,
+                                     final Class<T> entityClass,
+                                     final String id,
+                                     final Long version,
+                                     final Update update) {
+        final var criteria = Criteria.where("id").is(id);
+        if(version != null) {
+            criteria.and("version").is(version);
+        }
+
+        return reactiveMongoOperations.findAndModify(Query.query(criteria), update.inc("version", 1), FindAndModifyOptions.options().returnNew(true), entityClass);
+    }
+}
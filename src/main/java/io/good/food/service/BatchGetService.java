@@ -0,0 +1,80 @@
+package io.good.food.service;
+
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.exception.BusinessException;
+import io.vavr.control.Option;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class BatchGetService {
+
+    private final Integer maxSize;
+
+    @Autowired
+    public BatchGetService(@Value("${batch-get.max-size:500}") final Integer maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Set<String> keys(final List<String> keys) {
+        Option.of(keys).filter(CollectionUtils::isNotEmpty).getOrElseThrow(() -> new BusinessException("Ids are required"));
+
+        final var distinct = keys.stream()
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Option.when(distinct.size() <= this.maxSize, distinct).getOrElseThrow(() -> new BusinessException("At most " + this.maxSize + " ids are accepted"));
+
+        return distinct;
+    }
+
+    public <E, T> Flux<BatchGetResponseDTO<T>> results(final Set<String> keys,
+                                                       final Flux<E> found,
+                                                       final Function<E, String> key,
+                                                       final Function<E, T> mapper,
+                                                       final String notFound) {
+        return this.results(keys, Function.identity(), found, key, mapper, notFound);
+    }
+
+    public <E, T> Flux<BatchGetResponseDTO<T>> results(final Set<String> keys,
+                                                       final Function<String, String> normalize,
+                                                       final Flux<E> found,
+                                                       final Function<E, String> key,
+                                                       final Function<E, T> mapper,
+                                                       final String notFound) {
+        // Documents are streamed as the query returns them, the keys nothing came back for follow at the end.
+        // They are matched on the normalized key and reported under each key that was asked for
+        return Flux.defer(() -> {
+            final var missing = keys.stream()
+                    .collect(Collectors.groupingBy(normalize, LinkedHashMap::new, Collectors.toList()));
+
+            return found
+                    .flatMapIterable(t -> Option.of(missing.remove(normalize.apply(key.apply(t))))
+                            .getOrElse(List.of())
+                            .stream()
+                            .map(requested -> this.result(requested, mapper.apply(t), null))
+                            .collect(Collectors.toList()))
+                    .concatWith(Flux.defer(() -> Flux.fromStream(missing.values().stream().flatMap(List::stream))
+                            .map(t -> this.<T>result(t, null, notFound))));
+        });
+    }
+
+    private <T> BatchGetResponseDTO<T> result(final String key, final T value, final String error) {
+        final var result = new BatchGetResponseDTO<T>();
+        result.setKey(key);
+        result.setValue(value);
+        result.setError(error);
+
+        return result;
+    }
+}
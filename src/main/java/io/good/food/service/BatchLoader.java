@@ -0,0 +1,112 @@
+package io.good.food.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class BatchLoader<T> {
+
+    private final Function<Collection<String>, Flux<T>> loader;
+
+    private final Function<T, String> id;
+
+    private final Duration timeout;
+
+    private final FluxSink<Request<T>> sink;
+
+    private final Disposable subscription;
+
+    private final Counter requests;
+
+    private final Counter queries;
+
+    public BatchLoader(final MeterRegistry meterRegistry,
+                       final String name,
+                       final Function<Collection<String>, Flux<T>> loader,
+                       final Function<T, String> id,
+                       final Integer maxSize,
+                       final Duration window,
+                       final Duration timeout) {
+        this.loader = loader;
+        this.id = id;
+        this.timeout = timeout;
+        this.requests = meterRegistry.counter("batch-loader.requests", "name", name);
+        this.queries = meterRegistry.counter("batch-loader.queries", "name", name);
+
+        final var processor = UnicastProcessor.<Request<T>>create();
+        this.sink = processor.sink();
+
+        // Ids requested within the window, or until max-size of them piled up, are read with one $in query;
+        // batches wait in the buffer when many queries are running, a failing one only fails its own requests
+        this.subscription = processor.bufferTimeout(maxSize, window)
+                .onBackpressureBuffer()
+                .flatMap(batch -> Mono.defer(() -> this.resolve(batch))
+                        .onErrorResume(throwable -> this.failed(batch, throwable)))
+                .subscribe();
+    }
+
+    public void dispose() {
+        this.subscription.dispose();
+    }
+
+    public Mono<T> load(final String id) {
+        return Mono.defer(() -> {
+            final var request = new Request<T>(id);
+            this.requests.increment();
+            this.sink.next(request);
+
+            return request.result.timeout(this.timeout);
+        });
+    }
+
+    private Mono<Void> resolve(final List<Request<T>> batch) {
+        final var ids = batch.stream().map(t -> t.id).distinct().collect(Collectors.toList());
+        this.queries.increment();
+
+        return this.loader.apply(ids)
+                .collectMap(t -> key(this.id.apply(t)))
+                .doOnNext(found -> batch.forEach(request -> {
+                    final var value = found.get(key(request.id));
+
+                    if(value == null) {
+                        request.result.onComplete();
+                    } else {
+                        request.result.onNext(value);
+                    }
+                }))
+                .then();
+    }
+
+    private Mono<Void> failed(final List<Request<T>> batch, final Throwable throwable) {
+        batch.forEach(request -> request.result.onError(throwable));
+        return Mono.empty();
+    }
+
+    static String key(final String id) {
+        // Ids are stored as ObjectId when they are valid hex, which normalizes their case
+        return id != null && ObjectId.isValid(id) ? new ObjectId(id).toHexString() : id;
+    }
+
+    private static class Request<T> {
+
+        private final String id;
+
+        private final MonoProcessor<T> result = MonoProcessor.create();
+
+        private Request(final String id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.good.food.service;
+
+import io.good.food.dto.response.BulkResultDTO;
+import io.vavr.control.Try;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Service
+public class BulkService {
+
+    private final Integer chunkSize;
+
+    private final Integer concurrency;
+
+    @Autowired
+    public BulkService(@Value("${bulk.chunk-size:500}") final Integer chunkSize,
+                       @Value("${bulk.concurrency:16}") final Integer concurrency) {
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+    }
+
+    public <R> Flux<List<Tuple2<Long, R>>> chunks(final Flux<R> requests) {
+        // The body is read as it arrives, only one chunk of it is held in memory at a time
+        return requests.index().buffer(this.chunkSize);
+    }
+
+    public <R, E> Flux<BulkResultDTO> insert(final Flux<R> requests,
+                                             final Function<R, E> entity,
+                                             final Function<E, String> id,
+                                             final Function<List<E>, Mono<Map<Integer, String>>> writer,
+                                             final Consumer<E> inserted) {
+        return this.chunks(requests).concatMap(chunk -> {
+            final var results = new ArrayList<BulkResultDTO>();
+            final var entities = new ArrayList<E>();
+            final var written = new ArrayList<BulkResultDTO>();
+
+            chunk.forEach(request -> {
+                final var result = this.result(request.getT1(), null, null);
+                results.add(result);
+
+                Try.of(() -> entity.apply(request.getT2()))
+                        .onFailure(throwable -> result.setError(throwable.getMessage()))
+                        .forEach(t -> {
+                            result.setId(id.apply(t));
+                            entities.add(t);
+                            written.add(result);
+                        });
+            });
+
+            return writer.apply(entities)
+                    .onErrorResume(throwable -> Mono.just(IntStream.range(0, entities.size()).boxed()
+                            .collect(Collectors.toMap(Function.identity(), i -> String.valueOf(throwable.getMessage())))))
+                    .doOnNext(errors -> IntStream.range(0, entities.size()).forEach(i -> {
+                        if(errors.containsKey(i)) {
+                            written.get(i).setError(errors.get(i));
+                        } else {
+                            inserted.accept(entities.get(i));
+                        }
+                    }))
+                    .thenMany(Flux.fromIterable(results));
+        });
+    }
+
+    public <R> Flux<BulkResultDTO> update(final Flux<R> requests, final Function<R, String> id, final Function<R, Mono<?>> updater) {
+        // Each update is its own targeted write, run a few at a time and answered in request order
+        return requests.index()
+                .flatMapSequential(request -> Mono.defer(() -> updater.apply(request.getT2()))
+                        .then(Mono.fromSupplier(() -> this.result(request.getT1(), id.apply(request.getT2()), null)))
+                        .onErrorResume(throwable -> Mono.just(this.result(request.getT1(), id.apply(request.getT2()), throwable.getMessage()))), this.concurrency);
+    }
+
+    public BulkResultDTO result(final Long index, final String id, final String error) {
+        final var result = new BulkResultDTO();
+        result.setIndex(index);
+        result.setId(id);
+        result.setError(error);
+
+        return result;
+    }
+}
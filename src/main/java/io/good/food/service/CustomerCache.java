@@ -0,0 +1,161 @@
+package io.good.food.service;
+
+import io.good.food.dto.response.CustomerResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+@Component
+public class CustomerCache {
+
+    private static final String ID = "id:";
+
+    private static final String SUID = "suid:";
+
+    private final Boolean enabled;
+
+    private final Integer maxSize;
+
+    private final Duration ttl;
+
+    private final Duration negativeTtl;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    private long generation;
+
+    @Autowired
+    public CustomerCache(final MeterRegistry meterRegistry,
+                         @Value("${customer.cache.enabled:true}") final Boolean enabled,
+                         @Value("${customer.cache.max-size:10000}") final Integer maxSize,
+                         @Value("${customer.cache.ttl:300000}") final Long ttl,
+                         @Value("${customer.cache.negative-ttl:10000}") final Long negativeTtl) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttl = Duration.ofMillis(ttl);
+        this.negativeTtl = Duration.ofMillis(negativeTtl);
+
+        this.hits = meterRegistry.counter("customer.cache.hits");
+        this.misses = meterRegistry.counter("customer.cache.misses");
+        this.evictions = meterRegistry.counter("customer.cache.evictions");
+        Gauge.builder("customer.cache.size", this, CustomerCache::size).register(meterRegistry);
+    }
+
+    public Mono<CustomerResponseDTO> findById(final String id, final Supplier<Mono<CustomerResponseDTO>> loader) {
+        return this.find(ID + id, loader);
+    }
+
+    public Mono<CustomerResponseDTO> findBySuid(final String suid, final Supplier<Mono<CustomerResponseDTO>> loader) {
+        return this.find(SUID + suid, loader);
+    }
+
+    public synchronized void invalidate(final String id, final String suid) {
+        this.generation++;
+
+        // The suid of a customer may have changed, so the entries reachable from either key go as well
+        final var byId = this.entries.remove(ID + id);
+        final var bySuid = this.entries.remove(SUID + suid);
+
+        if(byId != null && byId.value != null) {
+            this.entries.remove(SUID + byId.value.getSuid());
+        }
+
+        if(bySuid != null && bySuid.value != null) {
+            this.entries.remove(ID + bySuid.value.getId());
+        }
+    }
+
+    public synchronized double size() {
+        return this.entries.size();
+    }
+
+    private Mono<CustomerResponseDTO> find(final String key, final Supplier<Mono<CustomerResponseDTO>> loader) {
+        if(!this.enabled) {
+            return loader.get();
+        }
+
+        return Mono.defer(() -> {
+            final var cached = this.get(key);
+            if(cached != null) {
+                this.hits.increment();
+                return Mono.justOrEmpty(cached.value);
+            }
+
+            this.misses.increment();
+            final var generation = this.generation();
+
+            return loader.get()
+                    .doOnNext(customer -> this.put(generation, customer))
+                    .switchIfEmpty(Mono.fromRunnable(() -> this.putMissing(generation, key)));
+        });
+    }
+
+    private synchronized Entry get(final String key) {
+        final var entry = this.entries.get(key);
+        if(entry == null || entry.expiresAt - System.nanoTime() > 0) {
+            return entry;
+        }
+
+        this.entries.remove(key);
+        this.evictions.increment();
+
+        return null;
+    }
+
+    private synchronized long generation() {
+        return this.generation;
+    }
+
+    private synchronized void put(final long generation, final CustomerResponseDTO customer) {
+        // A load that raced with an invalidation could bring back the customer as it was before the write
+        if(this.generation != generation) {
+            return;
+        }
+
+        final var entry = new Entry(customer, System.nanoTime() + this.ttl.toNanos());
+        this.add(ID + customer.getId(), entry);
+        this.add(SUID + customer.getSuid(), entry);
+    }
+
+    private synchronized void putMissing(final long generation, final String key) {
+        if(this.generation == generation) {
+            this.add(key, new Entry(null, System.nanoTime() + this.negativeTtl.toNanos()));
+        }
+    }
+
+    private void add(final String key, final Entry entry) {
+        this.entries.remove(key);
+        this.entries.put(key, entry);
+
+        while(this.entries.size() > this.maxSize) {
+            this.entries.remove(this.entries.keySet().iterator().next());
+            this.evictions.increment();
+        }
+    }
+
+    private static class Entry {
+
+        private final CustomerResponseDTO value;
+
+        private final long expiresAt;
+
+        private Entry(final CustomerResponseDTO value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,18 +2,32 @@ package io.good.food.service;
 
 import io.good.food.dto.request.CustomerInsertRequestDTO;
 import io.good.food.dto.request.CustomerUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.dto.response.BulkResultDTO;
+import io.good.food.dto.response.CustomerDeleteProgressDTO;
 import io.good.food.dto.response.CustomerResponseDTO;
 import io.good.food.entity.Customer;
 import io.good.food.exception.BusinessException;
+import io.good.food.exception.ConflictException;
 import io.good.food.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vavr.control.Option;
 import ma.glasnost.orika.MapperFacade;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
@@ -22,27 +36,70 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
 
+    private final OrderService orderService;
+
+    private final CustomerCache customerCache;
+
+    private final CustomerSuidFilter customerSuidFilter;
+
+    private final BatchGetService batchGetService;
+
+    private final BulkService bulkService;
+
+    private final BatchLoader<Customer> findByIdLoader;
+
     @Autowired
     public CustomerService(final MapperFacade mapperFacade,
-                           final CustomerRepository customerRepository) {
+                           final CustomerRepository customerRepository,
+                           final OrderService orderService,
+                           final CustomerCache customerCache,
+                           final CustomerSuidFilter customerSuidFilter,
+                           final BatchGetService batchGetService,
+                           final BulkService bulkService,
+                           final MeterRegistry meterRegistry,
+                           @Value("${batch-loader.max-size:100}") final Integer batchLoaderMaxSize,
+                           @Value("${batch-loader.window:2}") final Long batchLoaderWindow,
+                           @Value("${batch-loader.timeout:5000}") final Long batchLoaderTimeout) {
         this.mapperFacade = mapperFacade;
         this.customerRepository = customerRepository;
+        this.orderService = orderService;
+        this.customerCache = customerCache;
+        this.customerSuidFilter = customerSuidFilter;
+        this.batchGetService = batchGetService;
+        this.bulkService = bulkService;
+        this.findByIdLoader = new BatchLoader<>(meterRegistry, "customer.findById", customerRepository::findAllById, Customer::getId, batchLoaderMaxSize, Duration.ofMillis(batchLoaderWindow), Duration.ofMillis(batchLoaderTimeout));
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.findByIdLoader.dispose();
     }
 
     public Mono<CustomerResponseDTO> findById(final String id) {
         Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
 
-        return this.customerRepository.findById(id)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))))
-                .map(t -> this.mapperFacade.map(t, CustomerResponseDTO.class));
+        return this.customerCache.findById(id, () -> this.findByIdLoader.load(id).map(t -> this.mapperFacade.map(t, CustomerResponseDTO.class)))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))));
     }
 
     public Mono<CustomerResponseDTO> findBySuid(final String suid) {
         Option.of(suid).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Suid is required"));
 
-        return this.customerRepository.findBySuid(suid)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))))
-                .map(t -> this.mapperFacade.map(t, CustomerResponseDTO.class));
+        return Mono.just(suid)
+                .filter(this.customerSuidFilter::mightContain)
+                .flatMap(t -> this.customerCache.findBySuid(suid, () -> this.customerRepository.findBySuid(suid).map(customer -> this.mapperFacade.map(customer, CustomerResponseDTO.class))))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))));
+    }
+
+    public Flux<BatchGetResponseDTO<CustomerResponseDTO>> findAllBySuid(final List<String> suids) {
+        final var keys = this.batchGetService.keys(suids);
+        final var candidates = keys.stream()
+                .filter(this.customerSuidFilter::mightContain)
+                .collect(Collectors.toList());
+
+        final var found = candidates.isEmpty() ? Flux.<Customer>empty() : this.customerRepository.findBySuidIn(candidates);
+
+        return this.batchGetService.results(keys, found, Customer::getSuid, t -> this.mapperFacade.map(t, CustomerResponseDTO.class), "Customer not found");
     }
 
     public Mono<CustomerResponseDTO> create(final CustomerInsertRequestDTO request) {
@@ -50,34 +107,100 @@ public class CustomerService {
 
         final var entity = this.mapperFacade.map(request, Customer.class);
         entity.setCreationDate(LocalDateTime.now());
+        entity.setModificationDate(entity.getCreationDate());
 
         return this.customerRepository.insert(entity)
+                .doOnNext(this::invalidate)
                 .map(t -> this.mapperFacade.map(t, CustomerResponseDTO.class));
     }
 
+    public Flux<BulkResultDTO> createAll(final Flux<CustomerInsertRequestDTO> requests) {
+        return this.bulkService.insert(requests, this::toEntity, Customer::getId, this.customerRepository::insertAll, this::invalidate);
+    }
+
+    public Flux<BulkResultDTO> updateAll(final Flux<CustomerUpdateRequestDTO> requests) {
+        return this.bulkService.update(requests, CustomerUpdateRequestDTO::getId, this::update);
+    }
+
     public Mono<CustomerResponseDTO> update(final CustomerUpdateRequestDTO request) {
+        return this.update(request, null);
+    }
+
+    public Mono<CustomerResponseDTO> update(final CustomerUpdateRequestDTO request, final Long version) {
         this.validateUpdate(request);
 
-        return this.customerRepository.findById(request.getId())
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))))
-                .flatMap(customer -> this.update(customer, request));
+        final var update = new Update()
+                .set("name", request.getName())
+                .set("suid", request.getSuid())
+                .set("surname", request.getSurname())
+                .set("modificationDate", LocalDateTime.now());
+
+        return this.customerRepository.findAndModify(request.getId(), version, update)
+                .switchIfEmpty(Mono.defer(() -> this.notModified(request.getId(), version)))
+                .doOnNext(this::invalidate)
+                .map(t -> this.mapperFacade.map(t, CustomerResponseDTO.class));
     }
 
     public Mono<Void> deleteBySuid(final String suid) {
         Option.of(suid).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Suid is required"));
 
+        return this.customerRepository.findAndDeleteBySuid(suid)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))))
+                .doOnNext(this::invalidate)
+                .then();
+    }
+
+    public Flux<CustomerDeleteProgressDTO> deleteBySuidCascade(final String suid) {
+        Option.of(suid).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Suid is required"));
+
+        // The customer goes last, so an interrupted cascade can be resumed by deleting it again
         return this.customerRepository.findBySuid(suid)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))))
-                .flatMap(t -> this.customerRepository.deleteById(t.getId()));
+                .flatMapMany(customer -> {
+                    final var deleted = new AtomicLong();
+
+                    return this.orderService.deleteByCustomerId(customer.getId())
+                            .doOnNext(deleted::set)
+                            .map(t -> this.progress(suid, t, false))
+                            .concatWith(this.customerRepository.findAndDeleteBySuid(suid)
+                                    .doOnNext(this::invalidate)
+                                    .map(t -> this.progress(suid, deleted.get(), true)));
+                });
     }
 
-    private Mono<CustomerResponseDTO> update(final Customer customer, final CustomerUpdateRequestDTO request) {
-        customer.setName(request.getName());
-        customer.setSuid(request.getSuid());
-        customer.setSurname(request.getSurname());
+    private Mono<Customer> notModified(final String id, final Long version) {
+        return Mono.justOrEmpty(version)
+                .flatMap(t -> this.customerRepository.existsById(id))
+                .filter(Boolean::booleanValue)
+                .flatMap(t -> Mono.<Customer>error(new ConflictException("Customer was modified by another request")))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Customer not found"))));
+    }
 
-        return this.customerRepository.save(customer)
-                .map(t -> this.mapperFacade.map(t, CustomerResponseDTO.class));
+    private Customer toEntity(final CustomerInsertRequestDTO request) {
+        this.validateInsert(request);
+
+        final var entity = this.mapperFacade.map(request, Customer.class);
+        entity.setId(new ObjectId().toHexString());
+        entity.setCreationDate(LocalDateTime.now());
+        entity.setModificationDate(entity.getCreationDate());
+        entity.setVersion(0L);
+
+        return entity;
+    }
+
+    private void invalidate(final Customer customer) {
+        // A new or renamed suid may have been cached as not found
+        this.customerCache.invalidate(customer.getId(), customer.getSuid());
+        this.customerSuidFilter.put(customer.getSuid());
+    }
+
+    private CustomerDeleteProgressDTO progress(final String suid, final Long deletedOrders, final Boolean completed) {
+        final var progress = new CustomerDeleteProgressDTO();
+        progress.setSuid(suid);
+        progress.setDeletedOrders(deletedOrders);
+        progress.setCompleted(completed);
+
+        return progress;
     }
 
     private void validateInsert(final CustomerInsertRequestDTO request) {
@@ -0,0 +1,260 @@
+package io.good.food.service;
+
+import io.good.food.repository.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Component
+public class CustomerSuidFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerSuidFilter.class);
+
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private static final int SYNCS_MISSED = 3;
+
+    private final CustomerRepository customerRepository;
+
+    private final Boolean enabled;
+
+    private final Double falsePositiveRate;
+
+    private final Long expectedInsertions;
+
+    private final Duration period;
+
+    private final Duration syncPeriod;
+
+    private final Counter rejections;
+
+    private volatile Bits bits;
+
+    private volatile Bits building;
+
+    private volatile LocalDateTime syncedUntil;
+
+    private volatile long syncedAt;
+
+    private Disposable subscription;
+
+    private Disposable syncSubscription;
+
+    @Autowired
+    public CustomerSuidFilter(final CustomerRepository customerRepository,
+                              final MeterRegistry meterRegistry,
+                              @Value("${customer.suid-filter.enabled:true}") final Boolean enabled,
+                              @Value("${customer.suid-filter.false-positive-rate:0.01}") final Double falsePositiveRate,
+                              @Value("${customer.suid-filter.expected-insertions:100000}") final Long expectedInsertions,
+                              @Value("${customer.suid-filter.rebuild:3600000}") final Long period,
+                              @Value("${customer.suid-filter.sync:1000}") final Long syncPeriod) {
+        this.customerRepository = customerRepository;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.expectedInsertions = expectedInsertions;
+        this.period = Duration.ofMillis(period);
+        this.syncPeriod = Duration.ofMillis(syncPeriod);
+
+        this.rejections = meterRegistry.counter("customer.suid-filter.rejections");
+        Gauge.builder("customer.suid-filter.insertions", this, CustomerSuidFilter::insertions).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if(!this.enabled) {
+            return;
+        }
+
+        this.rebuild().block();
+
+        this.subscription = Flux.interval(this.period)
+                .onBackpressureDrop()
+                .concatMap(tick -> this.rebuild()
+                        .doOnError(throwable -> LOGGER.error("Failure rebuilding the customer suid filter. Error: {}", throwable.getMessage()))
+                        .onErrorResume(throwable -> Mono.empty()))
+                .subscribe();
+
+        this.syncSubscription = Flux.interval(this.syncPeriod)
+                .onBackpressureDrop()
+                .concatMap(tick -> this.sync()
+                        .doOnError(throwable -> LOGGER.error("Failure syncing the customer suid filter. Error: {}", throwable.getMessage()))
+                        .onErrorResume(throwable -> Mono.empty()))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if(this.subscription != null) {
+            this.subscription.dispose();
+        }
+
+        if(this.syncSubscription != null) {
+            this.syncSubscription.dispose();
+        }
+    }
+
+    public Mono<Void> rebuild() {
+        // Sized from the current count so the false positive rate holds as the collection grows
+        final var start = LocalDateTime.now();
+
+        return this.customerRepository.count()
+                .map(count -> new Bits(Math.max(this.expectedInsertions, 2 * count), this.falsePositiveRate))
+                .doOnNext(next -> this.building = next)
+                .flatMap(next -> this.customerRepository.findAllSuids()
+                        .doOnNext(next::put)
+                        .then(Mono.fromRunnable(() -> {
+                            this.bits = next;
+                            this.synced(start);
+                        })))
+                .doFinally(signal -> this.building = null)
+                .then();
+    }
+
+    public Mono<Void> sync() {
+        // Customers created or renamed by other instances only reach this filter through Mongo
+        final var since = this.syncedUntil;
+        if(since == null) {
+            return Mono.empty();
+        }
+
+        final var start = LocalDateTime.now();
+
+        return this.customerRepository.findSuidsModifiedSince(since.minus(SYNC_OVERLAP))
+                .doOnNext(this::put)
+                .then(Mono.fromRunnable(() -> this.synced(start)));
+    }
+
+    public void put(final String suid) {
+        if(suid == null) {
+            return;
+        }
+
+        // Suids created while a rebuild scans the collection must also reach the filter being built
+        final var current = this.bits;
+        final var next = this.building;
+
+        if(current != null) {
+            current.put(suid);
+        }
+
+        if(next != null) {
+            next.put(suid);
+        }
+    }
+
+    public boolean mightContain(final String suid) {
+        // A miss is only trusted while the filter keeps up with Mongo, otherwise the suid is looked up
+        final var current = this.bits;
+        if(current == null || !this.isSynced() || current.mightContain(suid)) {
+            return true;
+        }
+
+        this.rejections.increment();
+        return false;
+    }
+
+    public double insertions() {
+        final var current = this.bits;
+        return current == null ? 0 : current.insertions.get();
+    }
+
+    private void synced(final LocalDateTime start) {
+        this.syncedUntil = start;
+        this.syncedAt = System.nanoTime();
+    }
+
+    private boolean isSynced() {
+        return this.syncedUntil != null && System.nanoTime() - this.syncedAt < SYNCS_MISSED * this.syncPeriod.toNanos();
+    }
+
+    private static class Bits {
+
+        private final AtomicLongArray words;
+
+        private final long size;
+
+        private final int hashes;
+
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Bits(final long expectedInsertions, final double falsePositiveRate) {
+            final var bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.size = this.words.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) this.size / expectedInsertions * Math.log(2)));
+        }
+
+        private void put(final String value) {
+            final var hash = hash(value);
+            final var second = mix(hash ^ 0x9E3779B97F4A7C15L);
+            var added = false;
+
+            for(var i = 1; i <= this.hashes; i++) {
+                final var bit = ((hash + i * second) & Long.MAX_VALUE) % this.size;
+                final var index = (int) (bit >>> 6);
+                final var mask = 1L << bit;
+
+                added |= (this.words.getAndUpdate(index, word -> word | mask) & mask) == 0;
+            }
+
+            // Suids seen again by the sync are not counted twice
+            if(added) {
+                this.insertions.incrementAndGet();
+            }
+        }
+
+        private boolean mightContain(final String value) {
+            final var hash = hash(value);
+            final var second = mix(hash ^ 0x9E3779B97F4A7C15L);
+
+            for(var i = 1; i <= this.hashes; i++) {
+                final var bit = ((hash + i * second) & Long.MAX_VALUE) % this.size;
+
+                if((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static long hash(final String value) {
+            var hash = 0xCBF29CE484222325L;
+
+            for(final var b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xFF;
+                hash *= 0x100000001B3L;
+            }
+
+            return mix(hash);
+        }
+
+        private static long mix(final long value) {
+            var mixed = value;
+            mixed ^= mixed >>> 33;
+            mixed *= 0xFF51AFD7ED558CCDL;
+            mixed ^= mixed >>> 33;
+            mixed *= 0xC4CEB9FE1A85EC53L;
+            mixed ^= mixed >>> 33;
+
+            return mixed;
+        }
+    }
+}
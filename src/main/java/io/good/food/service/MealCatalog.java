@@ -0,0 +1,167 @@
+package io.good.food.service;
+
+import io.good.food.dto.response.MealResponseDTO;
+import io.good.food.entity.Meal;
+import io.good.food.repository.MealRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.control.Option;
+import ma.glasnost.orika.MapperFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class MealCatalog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MealCatalog.class);
+
+    // Same order as the creation_date_index, so pages match the ones read from Mongo
+    private static final Comparator<MealResponseDTO> ORDER = Comparator.comparing(MealResponseDTO::getCreationDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(MealResponseDTO::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final MapperFacade mapperFacade;
+
+    private final MealRepository mealRepository;
+
+    private final Duration period;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    private volatile long generation;
+
+    private Disposable subscription;
+
+    @Autowired
+    public MealCatalog(final MapperFacade mapperFacade,
+                       final MealRepository mealRepository,
+                       final MeterRegistry meterRegistry,
+                       @Value("${meal.catalog.refresh:60000}") final Long period) {
+        this.mapperFacade = mapperFacade;
+        this.mealRepository = mealRepository;
+        this.period = Duration.ofMillis(period);
+
+        this.hits = meterRegistry.counter("meal.catalog.hits");
+        this.misses = meterRegistry.counter("meal.catalog.misses");
+        Gauge.builder("meal.catalog.size", this, MealCatalog::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        this.refresh().block();
+
+        // Writes of other instances only reach this catalog through the periodic reload
+        this.subscription = Flux.interval(this.period)
+                .onBackpressureDrop()
+                .concatMap(tick -> this.refresh()
+                        .doOnError(throwable -> LOGGER.error("Failure refreshing the meal catalog. Error: {}", throwable.getMessage()))
+                        .onErrorResume(throwable -> Mono.empty()))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.subscription.dispose();
+    }
+
+    public Mono<Void> refresh() {
+        return Mono.fromSupplier(() -> this.generation)
+                .flatMap(generation -> this.mealRepository.findAll()
+                        .map(t -> this.mapperFacade.map(t, MealResponseDTO.class))
+                        .collectList()
+                        .doOnNext(meals -> this.replace(generation, meals)))
+                .then();
+    }
+
+    public List<MealResponseDTO> findAll() {
+        this.hits.increment();
+        return this.snapshot.meals;
+    }
+
+    public List<MealResponseDTO> findAfter(final LocalDateTime creationDate, final String id, final Integer limit) {
+        this.hits.increment();
+
+        final var meals = this.snapshot.meals;
+        if(creationDate == null) {
+            return meals.subList(0, Math.min(limit, meals.size()));
+        }
+
+        final var key = new MealResponseDTO();
+        key.setCreationDate(creationDate);
+        key.setId(id);
+
+        final var position = Collections.binarySearch(meals, key, ORDER);
+        final var from = position >= 0 ? position + 1 : -(position + 1);
+
+        return meals.subList(from, Math.min(from + limit, meals.size()));
+    }
+
+    public Option<MealResponseDTO> findById(final String id) {
+        final var meal = Option.of(this.snapshot.byId.get(id));
+        (meal.isDefined() ? this.hits : this.misses).increment();
+
+        return meal;
+    }
+
+    public synchronized void put(final Meal meal) {
+        final var byId = new HashMap<>(this.snapshot.byId);
+        byId.put(meal.getId(), this.mapperFacade.map(meal, MealResponseDTO.class));
+
+        this.generation++;
+        this.snapshot = new Snapshot(byId.values());
+    }
+
+    public synchronized void remove(final String id) {
+        final var byId = new HashMap<>(this.snapshot.byId);
+        byId.remove(id);
+
+        this.generation++;
+        this.snapshot = new Snapshot(byId.values());
+    }
+
+    public double size() {
+        return this.snapshot.meals.size();
+    }
+
+    private synchronized void replace(final long generation, final List<MealResponseDTO> meals) {
+        // A reload that started before a local write would bring that write back to its previous state
+        if(this.generation == generation) {
+            this.snapshot = new Snapshot(meals);
+        }
+    }
+
+    private static class Snapshot {
+
+        private final List<MealResponseDTO> meals;
+
+        private final Map<String, MealResponseDTO> byId;
+
+        private Snapshot(final Collection<MealResponseDTO> meals) {
+            this.meals = meals.stream().sorted(ORDER).collect(Collectors.toUnmodifiableList());
+            this.byId = meals.stream().collect(Collectors.toUnmodifiableMap(MealResponseDTO::getId, Function.identity(), (first, second) -> first));
+        }
+    }
+}
@@ -2,21 +2,29 @@ package io.good.food.service;
 
 import io.good.food.dto.request.MealInsertRequestDTO;
 import io.good.food.dto.request.MealUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.dto.response.BulkResultDTO;
 import io.good.food.dto.response.MealResponseDTO;
+import io.good.food.dto.response.PageResponseDTO;
 import io.good.food.dto.type.MealType;
 import io.good.food.entity.Meal;
 import io.good.food.exception.BusinessException;
+import io.good.food.exception.ConflictException;
 import io.good.food.repository.MealRepository;
 import io.vavr.control.Option;
 import ma.glasnost.orika.MapperFacade;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
 @Service
 public class MealService {
@@ -25,24 +33,59 @@ public class MealService {
 
     private final MealRepository mealRepository;
 
+    private final PageService pageService;
+
+    private final MealCatalog mealCatalog;
+
+    private final BatchGetService batchGetService;
+
+    private final BulkService bulkService;
+
     @Autowired
     public MealService(final MapperFacade mapperFacade,
-                       final MealRepository mealRepository) {
+                       final MealRepository mealRepository,
+                       final PageService pageService,
+                       final MealCatalog mealCatalog,
+                       final BatchGetService batchGetService,
+                       final BulkService bulkService) {
         this.mapperFacade = mapperFacade;
         this.mealRepository = mealRepository;
+        this.pageService = pageService;
+        this.mealCatalog = mealCatalog;
+        this.batchGetService = batchGetService;
+        this.bulkService = bulkService;
     }
 
     public Flux<MealResponseDTO> findAll() {
-        return this.mealRepository.findAll()
-                .map(t -> this.mapperFacade.map(t, MealResponseDTO.class));
+        return Flux.defer(() -> Flux.fromIterable(this.mealCatalog.findAll()));
+    }
+
+    public Mono<PageResponseDTO<MealResponseDTO>> findAll(final String token, final Integer size) {
+        final var pageable = this.pageService.pageable(size);
+
+        final var meals = this.pageService.token(token)
+                .map(t -> this.mealCatalog.findAfter(t._1, String.valueOf(t._2), pageable.getPageSize()))
+                .getOrElse(() -> this.mealCatalog.findAfter(null, null, pageable.getPageSize()));
+
+        return Mono.just(this.pageService.page(meals, pageable, MealResponseDTO::getCreationDate, MealResponseDTO::getId, Function.identity()));
     }
 
     public Mono<MealResponseDTO> findById(final String id) {
         Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
 
-        return this.mealRepository.findById(id)
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Meal not found"))))
-                .map(t -> this.mapperFacade.map(t, MealResponseDTO.class));
+        return Mono.defer(() -> Mono.justOrEmpty(this.mealCatalog.findById(id).toJavaOptional()))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Meal not found"))));
+    }
+
+    public Flux<BatchGetResponseDTO<MealResponseDTO>> findAllById(final List<String> ids) {
+        final var keys = this.batchGetService.keys(ids);
+        final var found = Flux.defer(() -> Flux.fromStream(keys.stream()
+                .map(BatchLoader::key)
+                .distinct()
+                .map(this.mealCatalog::findById)
+                .flatMap(Option::toJavaStream)));
+
+        return this.batchGetService.results(keys, BatchLoader::key, found, MealResponseDTO::getId, Function.identity(), "Meal not found");
     }
 
     public Mono<MealResponseDTO> create(final MealInsertRequestDTO request) {
@@ -52,32 +95,62 @@ public class MealService {
         entity.setCreationDate(LocalDateTime.now());
 
         return this.mealRepository.insert(entity)
+                .doOnNext(this.mealCatalog::put)
                 .map(t -> this.mapperFacade.map(t, MealResponseDTO.class));
     }
 
+    public Flux<BulkResultDTO> createAll(final Flux<MealInsertRequestDTO> requests) {
+        return this.bulkService.insert(requests, this::toEntity, Meal::getId, this.mealRepository::insertAll, this.mealCatalog::put);
+    }
+
+    public Flux<BulkResultDTO> updateAll(final Flux<MealUpdateRequestDTO> requests) {
+        return this.bulkService.update(requests, MealUpdateRequestDTO::getId, this::update);
+    }
+
     public Mono<MealResponseDTO> update(final MealUpdateRequestDTO request) {
+        return this.update(request, null);
+    }
+
+    public Mono<MealResponseDTO> update(final MealUpdateRequestDTO request, final Long version) {
         this.validateUpdate(request);
 
-        return this.mealRepository.findById(request.getId())
-                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Meal not found"))))
-                .flatMap(meal -> this.update(meal, request));
+        final var update = new Update()
+                .set("description", request.getDescription())
+                .set("note", request.getNote())
+                .set("type", request.getType());
+
+        return this.mealRepository.findAndModify(request.getId(), version, update)
+                .switchIfEmpty(Mono.defer(() -> this.notModified(request.getId(), version)))
+                .doOnNext(this.mealCatalog::put)
+                .map(t -> this.mapperFacade.map(t, MealResponseDTO.class));
     }
 
     public Mono<Void> delete(final String id) {
         Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
 
-        return this.mealRepository.findById(id)
+        return this.mealRepository.findAndDelete(id)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Meal not found"))))
-                .flatMap(t -> this.mealRepository.deleteById(t.getId()));
+                .doOnNext(t -> this.mealCatalog.remove(t.getId()))
+                .then();
     }
 
-    private Mono<MealResponseDTO> update(final Meal meal, final MealUpdateRequestDTO request) {
-        meal.setDescription(request.getDescription());
-        meal.setNote(request.getNote());
-        meal.setType(request.getType());
+    private Meal toEntity(final MealInsertRequestDTO request) {
+        this.validateInsert(request);
 
-        return this.mealRepository.save(meal)
-                .map(t -> this.mapperFacade.map(t, MealResponseDTO.class));
+        final var entity = this.mapperFacade.map(request, Meal.class);
+        entity.setId(new ObjectId().toHexString());
+        entity.setCreationDate(LocalDateTime.now());
+        entity.setVersion(0L);
+
+        return entity;
+    }
+
+    private Mono<Meal> notModified(final String id, final Long version) {
+        return Mono.justOrEmpty(version)
+                .flatMap(t -> this.mealRepository.existsById(id))
+                .filter(Boolean::booleanValue)
+                .flatMap(t -> Mono.<Meal>error(new ConflictException("Meal was modified by another request")))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Meal not found"))));
     }
 
 
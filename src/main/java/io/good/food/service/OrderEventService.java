@@ -0,0 +1,81 @@
+package io.good.food.service;
+
+import io.good.food.dto.domain.MealDTO;
+import io.good.food.dto.response.OrderResponseDTO;
+import io.good.food.dto.stream.OrderOutputDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.entity.OrderOutbox;
+import io.good.food.repository.OrderOutboxRepository;
+import io.good.food.streaming.OrderProducer;
+import ma.glasnost.orika.MapperFacade;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class OrderEventService {
+
+    private final MapperFacade mapperFacade;
+
+    private final OrderProducer orderProducer;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final Boolean outboxEnabled;
+
+    @Autowired
+    public OrderEventService(final MapperFacade mapperFacade,
+                             final OrderProducer orderProducer,
+                             final OrderOutboxRepository orderOutboxRepository,
+                             final ObjectProvider<TransactionalOperator> transactionalOperator,
+                             @Value("${outbox.enabled:false}") final Boolean outboxEnabled) {
+        this.mapperFacade = mapperFacade;
+        this.orderProducer = orderProducer;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.transactionalOperator = transactionalOperator.getIfAvailable();
+        this.outboxEnabled = outboxEnabled;
+    }
+
+    public Mono<OrderResponseDTO> publish(final OrderResponseDTO response, final ActionType action) {
+        if(!this.outboxEnabled) {
+            return this.orderProducer.output(response, action);
+        }
+
+        final var event = this.mapperFacade.map(response, OrderOutputDTO.class);
+        event.setAction(action);
+
+        return this.outbox(response, event);
+    }
+
+    public Mono<OrderResponseDTO> publish(final OrderResponseDTO response, final ActionType action, final List<MealDTO> meals) {
+        // Item level events carry only the meals they changed
+        final var event = this.mapperFacade.map(response, OrderOutputDTO.class);
+        event.setAction(action);
+        event.setMeals(meals);
+
+        return this.outboxEnabled ? this.outbox(response, event) : this.orderProducer.output(event).thenReturn(response);
+    }
+
+    public <T> Mono<T> transactional(final Mono<T> mono) {
+        return this.outboxEnabled ? this.transactionalOperator.transactional(mono) : mono;
+    }
+
+    private Mono<OrderResponseDTO> outbox(final OrderResponseDTO response, final OrderOutputDTO event) {
+        final var outbox = new OrderOutbox();
+        outbox.setCreationDate(LocalDateTime.now());
+        outbox.setOrderId(response.getId());
+        outbox.setEvent(event);
+
+        return this.orderOutboxRepository.insert(outbox)
+                .thenReturn(response);
+    }
+
+}
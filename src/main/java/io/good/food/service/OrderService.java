@@ -1,42 +1,109 @@
 package io.good.food.service;
 
+import io.good.food.dto.domain.MealDTO;
 import io.good.food.dto.request.OrderInsertRequestDTO;
 import io.good.food.dto.request.OrderUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.dto.response.BulkResultDTO;
 import io.good.food.dto.response.OrderResponseDTO;
+import io.good.food.dto.response.OrderStatusEventDTO;
+import io.good.food.dto.response.PageResponseDTO;
+import io.good.food.dto.stream.OrderBatchResultDTO;
+import io.good.food.dto.stream.OrderInputDTO;
 import io.good.food.dto.type.ActionType;
 import io.good.food.dto.type.OrderStatusType;
 import io.good.food.entity.Order;
 import io.good.food.exception.BusinessException;
+import io.good.food.exception.ConflictException;
 import io.good.food.repository.OrderRepository;
-import io.good.food.streaming.OrderProducer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.Tuple3;
 import io.vavr.control.Option;
+import io.vavr.control.Try;
 import ma.glasnost.orika.MapperFacade;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.UnicastProcessor;
 
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class OrderService {
 
     private final MapperFacade mapperFacade;
 
-    private final OrderProducer orderProducer;
+    private final OrderEventService orderEventService;
 
     private final OrderRepository orderRepository;
 
+    private final PageService pageService;
+
+    private final BatchGetService batchGetService;
+
+    private final BulkService bulkService;
+
+    private final OrderStatusFeed orderStatusFeed;
+
+    private final Integer cascadeBatchSize;
+
+    private final SingleFlight<Order> findByIdFlight;
+
+    private final BatchLoader<Order> findByIdLoader;
+
     @Autowired
     public OrderService(final MapperFacade mapperFacade,
-                        final OrderProducer orderProducer,
-                        final OrderRepository orderRepository) {
+                        final OrderEventService orderEventService,
+                        final OrderRepository orderRepository,
+                        final PageService pageService,
+                        final BatchGetService batchGetService,
+                        final BulkService bulkService,
+                        final OrderStatusFeed orderStatusFeed,
+                        final MeterRegistry meterRegistry,
+                        @Value("${customer.cascade.batch-size:500}") final Integer cascadeBatchSize,
+                        @Value("${batch-loader.max-size:100}") final Integer batchLoaderMaxSize,
+                        @Value("${batch-loader.window:2}") final Long batchLoaderWindow,
+                        @Value("${batch-loader.timeout:5000}") final Long batchLoaderTimeout) {
         this.mapperFacade = mapperFacade;
-        this.orderProducer = orderProducer;
+        this.orderEventService = orderEventService;
         this.orderRepository = orderRepository;
+        this.pageService = pageService;
+        this.batchGetService = batchGetService;
+        this.bulkService = bulkService;
+        this.orderStatusFeed = orderStatusFeed;
+        this.cascadeBatchSize = cascadeBatchSize;
+        this.findByIdFlight = new SingleFlight<>(meterRegistry, "order.findById");
+        this.findByIdLoader = new BatchLoader<>(meterRegistry, "order.findById", orderRepository::findAllById, Order::getId, batchLoaderMaxSize, Duration.ofMillis(batchLoaderWindow), Duration.ofMillis(batchLoaderTimeout));
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.findByIdLoader.dispose();
     }
 
     public Flux<OrderResponseDTO> findAll() {
@@ -58,55 +125,510 @@ public class OrderService {
                 .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class));
     }
 
+    public Mono<PageResponseDTO<OrderResponseDTO>> findAll(final String token, final Integer size) {
+        final var pageable = this.pageService.pageable(size);
+
+        final var orders = this.pageService.token(token)
+                .map(t -> this.orderRepository.findAllAfter(t._1, t._2, pageable))
+                .getOrElse(() -> this.orderRepository.findAllBy(pageable));
+
+        return this.page(orders, pageable);
+    }
+
+    public Mono<PageResponseDTO<OrderResponseDTO>> findByCustomerId(final String customerId, final String token, final Integer size) {
+        Option.of(customerId).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Customer id is required"));
+        final var pageable = this.pageService.pageable(size);
+
+        final var orders = this.pageService.token(token)
+                .map(t -> this.orderRepository.findByCustomerIdAfter(customerId, t._1, t._2, pageable))
+                .getOrElse(() -> this.orderRepository.findByCustomerId(customerId, pageable));
+
+        return this.page(orders, pageable);
+    }
+
+    public Mono<PageResponseDTO<OrderResponseDTO>> findByStatus(final OrderStatusType orderStatusType, final String token, final Integer size) {
+        Option.when(orderStatusType != null && !Objects.equals(OrderStatusType.ERROR, orderStatusType), orderStatusType).getOrElseThrow(() -> new BusinessException("Invalid order type"));
+        final var pageable = this.pageService.pageable(size);
+
+        final var orders = this.pageService.token(token)
+                .map(t -> this.orderRepository.findByStatusAfter(orderStatusType, t._1, t._2, pageable))
+                .getOrElse(() -> this.orderRepository.findByStatus(orderStatusType, pageable));
+
+        return this.page(orders, pageable);
+    }
+
     public Mono<OrderResponseDTO> findById(final String id) {
         Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
 
-        return this.orderRepository.findById(id)
+        // Each caller maps its own response, only the document read is shared
+        return this.findByIdFlight.execute(id, () -> this.findByIdLoader.load(id))
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Order not found"))))
                 .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class));
     }
 
+    public Flux<OrderStatusEventDTO> watchById(final String id) {
+        Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
+
+        return this.watch(this.findById(id).flux(), t -> id.equals(t.getId()));
+    }
+
+    public Flux<OrderStatusEventDTO> watchByCustomerId(final String customerId) {
+        Option.of(customerId).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Customer id is required"));
+
+        return this.watch(Flux.empty(), t -> customerId.equals(t.getCustomerId()));
+    }
+
+    public Flux<BatchGetResponseDTO<OrderResponseDTO>> findAllById(final List<String> ids) {
+        final var keys = this.batchGetService.keys(ids);
+
+        return this.batchGetService.results(keys, BatchLoader::key, this.orderRepository.findAllById(keys), Order::getId,
+                t -> this.mapperFacade.map(t, OrderResponseDTO.class), "Order not found");
+    }
+
     public Mono<OrderResponseDTO> create(final OrderInsertRequestDTO request) {
+        return this.create(request, null);
+    }
+
+    public Mono<OrderResponseDTO> create(final OrderInsertRequestDTO request, final String messageId) {
         this.validateInsert(request);
 
         final var entity = this.mapperFacade.map(request, Order.class);
         entity.setCreationDate(LocalDateTime.now());
+        entity.setMessageId(messageId);
 
-        return this.orderRepository.insert(entity)
+        // A retried message whose first attempt did insert the order gets that order and its event again, not a copy
+        final var existing = messageId == null ? Mono.<Order>empty() : this.orderRepository.findByMessageId(messageId);
+
+        return existing.switchIfEmpty(Mono.defer(() -> this.orderRepository.insert(entity)))
                 .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class))
-                .flatMap(t -> this.orderProducer.output(t, ActionType.CREATE));
+                .flatMap(t -> this.orderEventService.publish(t, ActionType.CREATE))
+                .as(this.orderEventService::transactional);
+    }
+
+    public Flux<BulkResultDTO> createAll(final Flux<OrderInsertRequestDTO> requests) {
+        // Each chunk goes through the consumer batch path: one unordered bulk write, then its events
+        return this.bulkService.chunks(requests)
+                .concatMap(chunk -> {
+                    final var inputs = chunk.stream()
+                            .map(t -> {
+                                final var input = this.mapperFacade.map(t.getT2(), OrderInputDTO.class);
+                                input.setAction(ActionType.CREATE);
+                                return input;
+                            })
+                            .collect(Collectors.toList());
+
+                    return this.batch(inputs)
+                            .map(t -> this.bulkService.result(chunk.get(t.getIndex()).getT1(), t.getId(), t.getError()));
+                });
+    }
+
+    public Flux<BulkResultDTO> updateAll(final Flux<OrderUpdateRequestDTO> requests) {
+        // Updates only set the fields they carry, like the single order update, instead of replacing the read document
+        return this.bulkService.update(requests, OrderUpdateRequestDTO::getId, this::update);
     }
 
     public Mono<OrderResponseDTO> update(final OrderUpdateRequestDTO request) {
+        return this.update(request, null);
+    }
+
+    public Mono<OrderResponseDTO> update(final OrderUpdateRequestDTO request, final Long version) {
         this.validateUpdate(request);
 
-        return this.orderRepository.findById(request.getId())
+        final var update = new Update()
+                .set("meals", request.getMeals())
+                .set("status", request.getStatus());
+
+        return this.orderRepository.findAndModify(request.getId(), version, update)
+                .switchIfEmpty(Mono.defer(() -> this.notModified(request.getId(), version)))
+                .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class))
+                .flatMap(t -> this.orderEventService.publish(t, ActionType.UPDATE))
+                .as(this.orderEventService::transactional);
+    }
+
+    public Mono<OrderResponseDTO> addMeals(final String id, final List<MealDTO> meals) {
+        return this.addMeals(id, meals, null);
+    }
+
+    public Mono<OrderResponseDTO> addMeals(final String id, final List<MealDTO> meals, final String messageId) {
+        Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
+        this.validateMeals(meals);
+        this.initializeMeals(meals, messageId);
+
+        // A retried message whose first attempt did add the meals gets the order and its event again, not a copy
+        return this.orderRepository.pushMeals(id, meals, messageId)
+                .switchIfEmpty(Mono.defer(() -> this.applied(id, messageId)))
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Order not found"))))
-                .flatMap(order -> this.update(order, request))
-                .flatMap(t -> this.orderProducer.output(t, ActionType.UPDATE));
+                .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class))
+                .flatMap(t -> this.orderEventService.publish(t, ActionType.ADD_MEALS, meals))
+                .as(this.orderEventService::transactional);
+    }
+
+    public Mono<OrderResponseDTO> removeMeals(final String id, final List<String> mealIds) {
+        return this.removeMeals(id, mealIds, null);
+    }
+
+    public Mono<OrderResponseDTO> removeMeals(final String id, final List<String> mealIds, final String messageId) {
+        Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
+        Option.of(mealIds).filter(CollectionUtils::isNotEmpty).getOrElseThrow(() -> new BusinessException("Meals are required"));
+
+        // The event carries only the meals that were in the order, ids it did not have are left out. The meals
+        // pulled by the first attempt of a retried message are gone, so its event again carries only their ids
+        return this.orderRepository.pullMeals(id, mealIds, messageId)
+                .switchIfEmpty(Mono.defer(() -> this.applied(id, messageId).map(t -> Tuple.of(t, this.removed(t, mealIds)))))
+                .switchIfEmpty(Mono.defer(() -> this.mealNotFound(id).map(t -> Tuple.of(t, List.<MealDTO>of()))))
+                .flatMap(t -> this.orderEventService.publish(this.mapperFacade.map(t._1, OrderResponseDTO.class), ActionType.REMOVE_MEALS, t._2))
+                .as(this.orderEventService::transactional);
+    }
+
+    public Mono<OrderResponseDTO> changeMealQuantity(final String id, final List<MealDTO> meals) {
+        return this.changeMealQuantity(id, meals, null);
+    }
+
+    public Mono<OrderResponseDTO> changeMealQuantity(final String id, final List<MealDTO> meals, final String messageId) {
+        Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
+        this.validateMeals(meals);
+        meals.forEach(meal -> {
+            Option.of(meal.getId()).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Meal id is required"));
+            Option.of(meal.getQuantity()).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Quantity is required"));
+        });
+
+        // A meal given twice keeps its last quantity, a single write then changes all of them or none
+        final var changed = new ArrayList<>(meals.stream()
+                .collect(Collectors.toMap(MealDTO::getId, Function.identity(), (first, second) -> second, LinkedHashMap::new))
+                .values());
+
+        return this.orderRepository.setMealQuantities(id, changed, messageId)
+                .switchIfEmpty(Mono.defer(() -> this.applied(id, messageId)))
+                .switchIfEmpty(Mono.defer(() -> this.mealNotFound(id)))
+                .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class))
+                .flatMap(t -> this.orderEventService.publish(t, ActionType.CHANGE_MEAL_QUANTITY, changed))
+                .as(this.orderEventService::transactional);
     }
 
     public Mono<Void> delete(final String id) {
         Option.of(id).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
 
-        return this.orderRepository.findById(id)
+        return this.orderRepository.findAndDelete(id)
                 .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Order not found"))))
-                .flatMap(this::delete);
+                .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class))
+                .flatMap(t -> this.orderEventService.publish(t, ActionType.DELETE))
+                .then()
+                .as(this.orderEventService::transactional);
     }
 
-    private Mono<OrderResponseDTO> update(final Order order, final OrderUpdateRequestDTO request) {
-        order.setMeals(request.getMeals());
-        order.setStatus(request.getStatus());
+    public Flux<Long> deleteByCustomerId(final String customerId) {
+        Option.of(customerId).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Customer id is required"));
 
-        return this.orderRepository.save(order)
-                .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class));
+        // Each batch is removed with one deleteMany on the ids just read and its DELETE events are written in
+        // the same transaction, then the running total is emitted as progress
+        return this.orderRepository.findByCustomerId(customerId)
+                .buffer(this.cascadeBatchSize)
+                .concatMap(orders -> this.orderRepository.deleteAllById(orders.stream().map(Order::getId).collect(Collectors.toList()))
+                        .flatMap(deleted -> Flux.fromIterable(orders)
+                                .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class))
+                                .concatMap(t -> this.orderEventService.publish(t, ActionType.DELETE))
+                                .then(Mono.just(deleted)))
+                        .as(this.orderEventService::transactional))
+                .scan(0L, Long::sum);
     }
 
-    private Mono<Void> delete(final Order order) {
-        final var response = this.mapperFacade.map(order, OrderResponseDTO.class);
+    public Flux<OrderBatchResultDTO> batch(final List<OrderInputDTO> inputs) {
+        return this.batch(inputs, Collections.nCopies(inputs.size(), null));
+    }
 
-        return this.orderRepository.delete(order)
-                .doOnSuccess(t -> this.orderProducer.output(response, ActionType.DELETE));
+    public Flux<OrderBatchResultDTO> batch(final List<OrderInputDTO> inputs, final List<String> messageIds) {
+        final var ids = inputs.stream()
+                .filter(t -> !Objects.equals(ActionType.CREATE, t.getAction()))
+                .map(OrderInputDTO::getId)
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.toSet());
+
+        final var keys = messageIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        final var created = keys.isEmpty() ? Mono.just(Map.<String, Order>of())
+                : this.orderRepository.findByMessageIdIn(keys).collectMap(Order::getMessageId);
+
+        return Mono.zip(this.orderRepository.findAllById(ids).collectMap(Order::getId), created)
+                .flatMapMany(t -> this.batch(inputs, messageIds, t.getT1(), t.getT2()));
+    }
+
+    private Flux<OrderStatusEventDTO> watch(final Flux<OrderResponseDTO> current, final Predicate<OrderStatusEventDTO> filter) {
+        return Flux.defer(() -> {
+            // Live events are queued before the current state is read, so no change can fall in between
+            final var pending = UnicastProcessor.<OrderStatusEventDTO>create();
+            final var subscription = this.orderStatusFeed.subscribe(filter).subscribe(pending::onNext, pending::onError, pending::onComplete);
+            final var statuses = new HashMap<String, OrderStatusType>();
+
+            return current.map(t -> this.mapperFacade.map(t, OrderStatusEventDTO.class))
+                    .concatWith(pending)
+                    // Events that repeat the status the client already has, item changes included, are skipped
+                    .filter(t -> Objects.equals(ActionType.DELETE, t.getAction()) || !Objects.equals(statuses.put(t.getId(), t.getStatus()), t.getStatus()))
+                    .doFinally(signal -> subscription.dispose());
+        });
+    }
+
+    private Mono<PageResponseDTO<OrderResponseDTO>> page(final Flux<Order> orders, final Pageable pageable) {
+        return orders.collectList()
+                .map(list -> this.pageService.page(list, pageable, Order::getCreationDate, Order::getId, t -> this.mapperFacade.map(t, OrderResponseDTO.class)));
+    }
+
+    private Flux<OrderBatchResultDTO> batch(final List<OrderInputDTO> inputs,
+                                            final List<String> messageIds,
+                                            final Map<String, Order> orders,
+                                            final Map<String, Order> created) {
+        final var results = new ArrayList<OrderBatchResultDTO>();
+        final var operations = new ArrayList<BatchOperation>();
+        final var staged = new HashMap<String, BatchOperation>();
+
+        IntStream.range(0, inputs.size()).forEach(index -> {
+            final var input = inputs.get(index);
+
+            final var result = new OrderBatchResultDTO();
+            result.setIndex(index);
+            result.setId(input.getId());
+            result.setAction(input.getAction());
+            results.add(result);
+
+            Try.run(() -> this.stage(index, input, messageIds.get(index), orders, created, staged, operations))
+                    .onFailure(throwable -> result.setError(throwable.getMessage()));
+        });
+
+        // Orders already created by an earlier attempt of the same message are only published again
+        final var pending = operations.stream()
+                .filter(t -> !t.written)
+                .collect(Collectors.toList());
+
+        final var writes = pending.stream()
+                .map(t -> Tuple.of(t.action, t.order, t.expected))
+                .collect(Collectors.toList());
+
+        // The bulk write and the events of what it wrote share one transaction when the outbox is enabled
+        return this.orderRepository.bulkWrite(writes)
+                .onErrorResume(throwable -> Mono.just(IntStream.range(0, pending.size()).boxed()
+                        .collect(Collectors.toMap(Function.identity(), i -> String.valueOf(throwable.getMessage())))))
+                .flatMap(errors -> {
+                    errors.forEach((i, error) -> pending.get(i).records.forEach(record -> {
+                        results.get(record).setError(error);
+                        results.get(record).setConflict(Objects.equals(OrderRepository.CONFLICT, error));
+                    }));
+                    operations.forEach(t -> t.records.forEach(record -> results.get(record).setId(t.order.getId())));
+
+                    final var failed = errors.keySet().stream()
+                            .map(pending::get)
+                            .collect(Collectors.toSet());
+
+                    return Flux.fromIterable(operations)
+                            .filter(t -> !failed.contains(t))
+                            .concatMapIterable(t -> t.events)
+                            .concatMap(t -> t._3 == null ? this.orderEventService.publish(t._2, t._1) : this.orderEventService.publish(t._2, t._1, t._3))
+                            .then(Mono.just(errors));
+                })
+                .as(this.orderEventService::transactional)
+                .thenMany(Flux.fromIterable(results));
+    }
+
+    private void stage(final Integer index,
+                       final OrderInputDTO input,
+                       final String messageId,
+                       final Map<String, Order> orders,
+                       final Map<String, Order> created,
+                       final Map<String, BatchOperation> staged,
+                       final List<BatchOperation> operations) {
+        Option.of(input.getAction()).getOrElseThrow(() -> new BusinessException("Action is required to complete the operation"));
+
+        if(Objects.equals(ActionType.CREATE, input.getAction())) {
+            final var request = this.mapperFacade.map(input, OrderInsertRequestDTO.class);
+            this.validateInsert(request);
+
+            final var existing = messageId == null ? null : created.get(messageId);
+            if(existing != null) {
+                final var operation = new BatchOperation(ActionType.CREATE, existing, null, index);
+                operation.written = true;
+                operation.event(ActionType.CREATE, this.mapperFacade.map(existing, OrderResponseDTO.class), null);
+                operations.add(operation);
+                return;
+            }
+
+            final var entity = this.mapperFacade.map(request, Order.class);
+            entity.setId(new ObjectId().toHexString());
+            entity.setCreationDate(LocalDateTime.now());
+            entity.setVersion(0L);
+            entity.setMessageId(messageId);
+
+            final var operation = new BatchOperation(ActionType.CREATE, entity, null, index);
+            operation.event(ActionType.CREATE, this.mapperFacade.map(entity, OrderResponseDTO.class), null);
+            operations.add(operation);
+            return;
+        }
+
+        if(Objects.equals(ActionType.UPDATE, input.getAction())) {
+            this.validateUpdate(this.mapperFacade.map(input, OrderUpdateRequestDTO.class));
+        } else {
+            Option.of(input.getId()).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
+        }
+
+        // Messages for the same order are folded in arrival order, so the batch ends with a single write per order
+        final var operation = staged.get(input.getId());
+        final var order = operation == null ? orders.get(input.getId())
+                : Objects.equals(ActionType.DELETE, operation.action) ? null : operation.order;
+        Option.of(order).getOrElseThrow(() -> new BusinessException("Order not found"));
+
+        // The write only applies if the order still has the version read for the batch
+        final var expected = operation == null ? order.getVersion() : operation.expected;
+
+        final var item = !Objects.equals(ActionType.UPDATE, input.getAction()) && !Objects.equals(ActionType.DELETE, input.getAction());
+
+        // An item message the order already applied, in an earlier attempt or earlier in the batch, is only published again
+        if(item && messageId != null && Option.of(order.getAppliedMessageIds()).exists(t -> t.contains(messageId))) {
+            final var replayed = new BatchOperation(ActionType.UPDATE, order, expected, index);
+            replayed.written = true;
+            replayed.event(input.getAction(), this.mapperFacade.map(order, OrderResponseDTO.class), this.replayed(order, input, messageId));
+            operations.add(replayed);
+            return;
+        }
+
+        // Item level messages are applied to the staged order and written back with the whole document, their events
+        // still carry only the meals they changed
+        final var action = Objects.equals(ActionType.DELETE, input.getAction()) ? ActionType.DELETE : ActionType.UPDATE;
+        final var applied = item ? this.applyMeals(order.getMeals(), input, messageId) : null;
+
+        if(Objects.equals(ActionType.UPDATE, input.getAction())) {
+            order.setMeals(input.getMeals());
+            order.setStatus(input.getStatus());
+        } else if(applied != null) {
+            order.setMeals(applied._1);
+        }
+
+        if(Objects.equals(ActionType.UPDATE, action)) {
+            order.setVersion(Option.of(order.getVersion()).getOrElse(0L) + 1);
+        }
+
+        if(item && messageId != null) {
+            final var appliedMessageIds = new ArrayList<>(Option.of(order.getAppliedMessageIds()).getOrElse(List.of()));
+            appliedMessageIds.add(messageId);
+            order.setAppliedMessageIds(appliedMessageIds.subList(Math.max(0, appliedMessageIds.size() - OrderRepository.APPLIED_MESSAGE_IDS), appliedMessageIds.size()));
+        }
+
+        final var staging = operation == null ? new BatchOperation(action, order, expected, index) : operation;
+
+        if(operation == null) {
+            staged.put(input.getId(), staging);
+            operations.add(staging);
+
+        } else {
+            operation.action = action;
+            operation.order = order;
+            operation.records.add(index);
+        }
+
+        staging.event(item ? input.getAction() : action, this.mapperFacade.map(order, OrderResponseDTO.class), applied == null ? null : applied._2);
+    }
+
+    private Tuple2<List<MealDTO>, List<MealDTO>> applyMeals(final List<MealDTO> current, final OrderInputDTO input, final String messageId) {
+        this.validateMeals(input.getMeals());
+
+        final var meals = new ArrayList<MealDTO>(Option.of(current).getOrElse(List.of()));
+        final var byId = meals.stream()
+                .filter(meal -> meal.getId() != null)
+                .collect(Collectors.toMap(MealDTO::getId, Function.identity(), (first, second) -> first));
+
+        if(Objects.equals(ActionType.ADD_MEALS, input.getAction())) {
+            this.initializeMeals(input.getMeals(), messageId);
+            meals.addAll(input.getMeals());
+            return Tuple.of(meals, input.getMeals());
+        }
+
+        input.getMeals().forEach(meal -> {
+            Option.of(byId.get(meal.getId())).getOrElseThrow(() -> new BusinessException("Meal not found"));
+
+            if(Objects.equals(ActionType.CHANGE_MEAL_QUANTITY, input.getAction())) {
+                Option.of(meal.getQuantity()).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Quantity is required"));
+            }
+        });
+
+        if(Objects.equals(ActionType.REMOVE_MEALS, input.getAction())) {
+            final var ids = input.getMeals().stream().map(MealDTO::getId).collect(Collectors.toSet());
+            final var removed = meals.stream().filter(meal -> ids.contains(meal.getId())).collect(Collectors.toList());
+            meals.removeIf(meal -> ids.contains(meal.getId()));
+            return Tuple.of(meals, removed);
+        }
+
+        input.getMeals().forEach(meal -> byId.get(meal.getId()).setQuantity(meal.getQuantity()));
+
+        return Tuple.of(meals, input.getMeals());
+    }
+
+    private List<MealDTO> replayed(final Order order, final OrderInputDTO input, final String messageId) {
+        this.validateMeals(input.getMeals());
+
+        if(Objects.equals(ActionType.REMOVE_MEALS, input.getAction())) {
+            return this.removed(order, input.getMeals().stream().map(MealDTO::getId).collect(Collectors.toList()));
+        }
+
+        if(Objects.equals(ActionType.ADD_MEALS, input.getAction())) {
+            this.initializeMeals(input.getMeals(), messageId);
+        }
+
+        return input.getMeals();
+    }
+
+    private Mono<Order> applied(final String id, final String messageId) {
+        return messageId == null ? Mono.empty() : this.orderRepository.findByIdAndAppliedMessageIds(id, messageId);
+    }
+
+    private List<MealDTO> removed(final Order order, final List<String> mealIds) {
+        final var remaining = Option.of(order.getMeals()).getOrElse(List.of()).stream()
+                .map(MealDTO::getId)
+                .collect(Collectors.toSet());
+
+        return mealIds.stream()
+                .filter(mealId -> !remaining.contains(mealId))
+                .map(mealId -> {
+                    final var meal = new MealDTO();
+                    meal.setId(mealId);
+                    return meal;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Mono<Order> mealNotFound(final String id) {
+        return this.orderRepository.existsById(id)
+                .flatMap(exists -> Mono.error(new BusinessException(exists ? "Meal not found" : "Order not found")));
+    }
+
+    private void initializeMeals(final List<MealDTO> meals, final String messageId) {
+        IntStream.range(0, meals.size())
+                .filter(i -> StringUtils.isBlank(meals.get(i).getId()))
+                .forEach(i -> meals.get(i).setId(this.mealId(messageId, i)));
+
+        meals.stream()
+                .filter(meal -> meal.getCreationDate() == null)
+                .forEach(meal -> meal.setCreationDate(LocalDateTime.now()));
+    }
+
+    private String mealId(final String messageId, final Integer index) {
+        // Meals added by a message get the same ids on every attempt, so the event of a retry names the stored meals
+        if(messageId == null) {
+            return new ObjectId().toHexString();
+        }
+
+        final var digest = DigestUtils.md5Digest((messageId + "-" + index).getBytes(StandardCharsets.UTF_8));
+        return new ObjectId(Arrays.copyOf(digest, 12)).toHexString();
+    }
+
+    private void validateMeals(final List<MealDTO> meals) {
+        Option.of(meals).filter(CollectionUtils::isNotEmpty).getOrElseThrow(() -> new BusinessException("Meals are required"));
+    }
+
+    private Mono<Order> notModified(final String id, final Long version) {
+        // Without an expected version the update only misses when the order does not exist
+        return Mono.justOrEmpty(version)
+                .flatMap(t -> this.orderRepository.existsById(id))
+                .filter(Boolean::booleanValue)
+                .flatMap(t -> Mono.<Order>error(new ConflictException("Order was modified by another request")))
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new BusinessException("Order not found"))));
     }
 
     private void validateInsert(final OrderInsertRequestDTO request) {
@@ -119,4 +641,35 @@ public class OrderService {
         Option.of(request.getId()).filter(StringUtils::isNotBlank).getOrElseThrow(() -> new BusinessException("Id is required"));
         Option.when(request.getStatus() != null && !Objects.equals(OrderStatusType.ERROR, request.getStatus()), request::getStatus).getOrElseThrow(() -> new BusinessException("Invalid order status"));
     }
+
+    private static class BatchOperation {
+
+        private ActionType action;
+
+        private Order order;
+
+        private final Long expected;
+
+        private boolean written;
+
+        private final List<Integer> records = new ArrayList<>();
+
+        private final List<Tuple3<ActionType, OrderResponseDTO, List<MealDTO>>> events = new ArrayList<>();
+
+        private BatchOperation(final ActionType action, final Order order, final Long expected, final Integer record) {
+            this.action = action;
+            this.order = order;
+            this.expected = expected;
+            this.records.add(record);
+        }
+
+        private void event(final ActionType action, final OrderResponseDTO response, final List<MealDTO> meals) {
+            // A full event carries the whole order, so the events folded before it are left out
+            if(meals == null) {
+                this.events.clear();
+            }
+
+            this.events.add(Tuple.of(action, response, meals));
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package io.good.food.service;
+
+import io.good.food.dto.response.OrderStatusEventDTO;
+import io.good.food.dto.stream.OrderOutputDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ma.glasnost.orika.MapperFacade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.function.Predicate;
+
+/**
+ * In-memory fan-out of the order events read back from order-out-v1. Every client subscribes to the same
+ * sink and keeps only the events of its own orders, so watching an order costs no Mongo reads.
+ */
+@Component
+public class OrderStatusFeed {
+
+    private final MapperFacade mapperFacade;
+
+    private final Integer bufferSize;
+
+    private final DirectProcessor<OrderStatusEventDTO> processor = DirectProcessor.create();
+
+    private final FluxSink<OrderStatusEventDTO> sink = this.processor.sink();
+
+    private final Counter events;
+
+    private final Counter dropped;
+
+    @Autowired
+    public OrderStatusFeed(final MapperFacade mapperFacade,
+                           final MeterRegistry meterRegistry,
+                           @Value("${order.status-feed.buffer-size:256}") final Integer bufferSize) {
+        this.mapperFacade = mapperFacade;
+        this.bufferSize = bufferSize;
+
+        this.events = meterRegistry.counter("order.status-feed.events");
+        this.dropped = meterRegistry.counter("order.status-feed.dropped");
+        Gauge.builder("order.status-feed.subscribers", this.processor, DirectProcessor::downstreamCount).register(meterRegistry);
+    }
+
+    public void publish(final OrderOutputDTO event) {
+        this.events.increment();
+        this.sink.next(this.mapperFacade.map(event, OrderStatusEventDTO.class));
+    }
+
+    public Flux<OrderStatusEventDTO> subscribe(final Predicate<OrderStatusEventDTO> filter) {
+        // A slow client loses its own oldest events instead of holding back the sink for everyone else
+        return this.processor
+                .filter(filter)
+                .onBackpressureBuffer(this.bufferSize, event -> this.dropped.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+}
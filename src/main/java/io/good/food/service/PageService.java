@@ -0,0 +1,94 @@
+package io.good.food.service;
+
+import io.good.food.dto.response.PageResponseDTO;
+import io.good.food.exception.BusinessException;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class PageService {
+
+    public static final String NEXT_PAGE_TOKEN = "X-Next-Page-Token";
+
+    private static final String SEPARATOR = "|";
+
+    private final Integer defaultSize;
+
+    private final Integer maxSize;
+
+    @Autowired
+    public PageService(@Value("${pagination.default-size:100}") final Integer defaultSize,
+                       @Value("${pagination.max-size:500}") final Integer maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    public static boolean isPaged(final String token, final Integer size) {
+        // Listings stay unpaged as they always were, a page is only returned when one is asked for
+        return size != null || StringUtils.isNotBlank(token);
+    }
+
+    public Pageable pageable(final Integer size) {
+        final var pageSize = Option.of(size).getOrElse(this.defaultSize);
+        Option.when(pageSize > 0, pageSize).getOrElseThrow(() -> new BusinessException("Invalid page size"));
+
+        // One document past the page tells whether there is a next one
+        return PageRequest.of(0, Math.min(pageSize, this.maxSize) + 1, Sort.by("creationDate", "id"));
+    }
+
+    public Option<Tuple2<LocalDateTime, Object>> token(final String token) {
+        return Option.of(token)
+                .filter(StringUtils::isNotBlank)
+                .map(t -> Try.of(() -> this.decode(t)).getOrElseThrow(() -> new BusinessException("Invalid page token")));
+    }
+
+    public <E, T> PageResponseDTO<T> page(final List<E> entities,
+                                          final Pageable pageable,
+                                          final Function<E, LocalDateTime> creationDate,
+                                          final Function<E, String> id,
+                                          final Function<E, T> mapper) {
+        final var size = pageable.getPageSize() - 1;
+        final var content = entities.stream().limit(size).collect(Collectors.toList());
+
+        final var page = new PageResponseDTO<T>();
+        page.setContent(content.stream().map(mapper).collect(Collectors.toList()));
+
+        if(entities.size() > size) {
+            final var last = content.get(content.size() - 1);
+            page.setNext(this.encode(creationDate.apply(last), id.apply(last)));
+        }
+
+        return page;
+    }
+
+    private String encode(final LocalDateTime creationDate, final String id) {
+        final var token = creationDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Tuple2<LocalDateTime, Object> decode(final String token) {
+        final var decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        final var creationDate = LocalDateTime.parse(StringUtils.substringBefore(decoded, SEPARATOR));
+        final var id = StringUtils.substringAfter(decoded, SEPARATOR);
+
+        // Generated ids are stored as ObjectId, a string bound in a raw query would never compare greater
+        return Tuple.of(creationDate, ObjectId.isValid(id) ? new ObjectId(id) : id);
+    }
+}
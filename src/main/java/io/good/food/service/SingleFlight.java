@@ -0,0 +1,47 @@
+package io.good.food.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class SingleFlight<T> {
+
+    private final ConcurrentHashMap<String, Mono<T>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executions;
+
+    private final Counter coalesced;
+
+    public SingleFlight(final MeterRegistry meterRegistry, final String name) {
+        this.executions = meterRegistry.counter("single-flight.executions", "name", name);
+        this.coalesced = meterRegistry.counter("single-flight.coalesced", "name", name);
+    }
+
+    public Mono<T> execute(final String key, final Supplier<Mono<T>> supplier) {
+        return Mono.defer(() -> {
+            final var candidate = new AtomicReference<Mono<T>>();
+
+            // The result is replayed to everyone who joined while it ran, the next caller after it ends queries again
+            candidate.set(Mono.defer(supplier)
+                    .doFinally(signal -> this.inFlight.remove(key, candidate.get()))
+                    .cache());
+
+            final var current = this.inFlight.putIfAbsent(key, candidate.get());
+            if(current != null) {
+                this.coalesced.increment();
+                return current;
+            }
+
+            this.executions.increment();
+            return candidate.get();
+        });
+    }
+
+    public int size() {
+        return this.inFlight.size();
+    }
+}
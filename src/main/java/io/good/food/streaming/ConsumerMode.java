@@ -0,0 +1,9 @@
+package io.good.food.streaming;
+
+public enum ConsumerMode {
+
+    BLOCKING,
+    REACTIVE,
+    BATCH
+
+}
@@ -0,0 +1,237 @@
+package io.good.food.streaming;
+
+import io.good.food.dto.type.ProcessedMessageStatusType;
+import io.good.food.entity.ProcessedMessage;
+import io.good.food.exception.RetryableException;
+import io.good.food.repository.ProcessedMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+@Component
+public class IdempotencyStore {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 96L;
+
+    private final ProcessedMessageRepository processedMessageRepository;
+
+    private final Boolean enabled;
+
+    private final Boolean mongoEnabled;
+
+    private final Integer maxSize;
+
+    private final Duration ttl;
+
+    private final Duration lease;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    private long estimatedBytes;
+
+    @Autowired
+    public IdempotencyStore(final ProcessedMessageRepository processedMessageRepository,
+                            final MeterRegistry meterRegistry,
+                            @Value("${idempotency.enabled:true}") final Boolean enabled,
+                            @Value("${idempotency.mongo.enabled:false}") final Boolean mongoEnabled,
+                            @Value("${idempotency.max-size:100000}") final Integer maxSize,
+                            @Value("${idempotency.ttl:3600000}") final Long ttl,
+                            @Value("${idempotency.lease:60000}") final Long lease) {
+        this.processedMessageRepository = processedMessageRepository;
+        this.enabled = enabled;
+        this.mongoEnabled = mongoEnabled;
+        this.maxSize = maxSize;
+        this.ttl = Duration.ofMillis(ttl);
+        this.lease = Duration.ofMillis(lease);
+
+        this.hits = meterRegistry.counter("order.consumer.idempotency.hits");
+        this.misses = meterRegistry.counter("order.consumer.idempotency.misses");
+        this.evictions = meterRegistry.counter("order.consumer.idempotency.evictions");
+        Gauge.builder("order.consumer.idempotency.size", this, IdempotencyStore::size).register(meterRegistry);
+        Gauge.builder("order.consumer.idempotency.memory", this, IdempotencyStore::estimatedBytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    public Mono<Boolean> claim(final String key) {
+        // The key stays pending for the lease and is only done once the message was handled; a pending
+        // claim of someone else fails as retryable instead of being skipped, since that attempt may never finish
+        if(!this.enabled || key == null) {
+            return Mono.just(true);
+        }
+
+        final var local = this.claimLocally(key);
+
+        if(Objects.equals(Claim.DONE, local)) {
+            this.hits.increment();
+            return Mono.just(false);
+        }
+
+        if(Objects.equals(Claim.PENDING, local)) {
+            return Mono.error(this.pending(key));
+        }
+
+        if(!this.mongoEnabled) {
+            this.misses.increment();
+            return Mono.just(true);
+        }
+
+        final var now = LocalDateTime.now();
+
+        final var processed = new ProcessedMessage();
+        processed.setId(key);
+        processed.setCreationDate(now);
+        processed.setStatus(ProcessedMessageStatusType.PENDING);
+        processed.setLeaseDate(now.plus(this.lease));
+
+        // The unique _id catches messages claimed by other instances or before a restart
+        return this.processedMessageRepository.insert(processed)
+                .map(t -> true)
+                .onErrorResume(DuplicateKeyException.class, throwable -> this.takeOver(key, now))
+                .doOnNext(claimed -> {
+                    (claimed ? this.misses : this.hits).increment();
+
+                    if(!claimed) {
+                        this.completeLocally(key);
+                    }
+                })
+                .doOnError(throwable -> this.releaseLocally(key));
+    }
+
+    public Mono<Void> complete(final String key) {
+        if(!this.enabled || key == null) {
+            return Mono.empty();
+        }
+
+        this.completeLocally(key);
+
+        return this.mongoEnabled ? this.processedMessageRepository.complete(key).then() : Mono.empty();
+    }
+
+    public Mono<Void> release(final String key) {
+        if(!this.enabled || key == null) {
+            return Mono.empty();
+        }
+
+        this.releaseLocally(key);
+
+        return this.mongoEnabled ? this.processedMessageRepository.deleteById(key) : Mono.empty();
+    }
+
+    public synchronized double size() {
+        return this.entries.size();
+    }
+
+    public synchronized double estimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    private Mono<Boolean> takeOver(final String key, final LocalDateTime now) {
+        // A pending claim past its lease was left by an instance that stopped before finishing the message
+        return this.processedMessageRepository.takeOver(key, now, now.plus(this.lease))
+                .map(t -> true)
+                .switchIfEmpty(Mono.defer(() -> this.processedMessageRepository.findById(key)
+                        .filter(t -> !Objects.equals(ProcessedMessageStatusType.PENDING, t.getStatus()))
+                        .map(t -> false)
+                        .switchIfEmpty(Mono.defer(() -> Mono.error(this.pending(key))))));
+    }
+
+    private RetryableException pending(final String key) {
+        return new RetryableException("Order message " + key + " is already being processed");
+    }
+
+    private synchronized Claim claimLocally(final String key) {
+        final var now = System.nanoTime();
+        this.expire(now);
+
+        final var entry = this.entries.get(key);
+        if(entry != null && entry.expiresAt - now > 0) {
+            return entry.done ? Claim.DONE : Claim.PENDING;
+        }
+
+        this.add(key, new Entry(now + this.lease.toNanos(), false));
+
+        return Claim.CLAIMED;
+    }
+
+    private synchronized void completeLocally(final String key) {
+        this.add(key, new Entry(System.nanoTime() + this.ttl.toNanos(), true));
+    }
+
+    private synchronized void releaseLocally(final String key) {
+        if(this.entries.containsKey(key)) {
+            this.remove(key);
+        }
+    }
+
+    private void add(final String key, final Entry entry) {
+        if(this.entries.containsKey(key)) {
+            this.remove(key);
+        }
+
+        this.entries.put(key, entry);
+        this.estimatedBytes += this.bytes(key);
+
+        while(this.entries.size() > this.maxSize) {
+            this.remove(this.entries.keySet().iterator().next());
+            this.evictions.increment();
+        }
+    }
+
+    private void expire(final long now) {
+        // Leases are shorter than the TTL, so the order is only roughly by expiration; lookups check it again
+        final var iterator = this.entries.entrySet().iterator();
+
+        while(iterator.hasNext()) {
+            final var entry = iterator.next();
+            if(entry.getValue().expiresAt - now > 0) {
+                return;
+            }
+
+            iterator.remove();
+            this.estimatedBytes -= this.bytes(entry.getKey());
+            this.evictions.increment();
+        }
+    }
+
+    private void remove(final String key) {
+        this.entries.remove(key);
+        this.estimatedBytes -= this.bytes(key);
+    }
+
+    private long bytes(final String key) {
+        return ENTRY_OVERHEAD_BYTES + 2L * key.length();
+    }
+
+    private enum Claim {
+        CLAIMED,
+        PENDING,
+        DONE
+    }
+
+    private static class Entry {
+
+        private final long expiresAt;
+
+        private final boolean done;
+
+        private Entry(final long expiresAt, final boolean done) {
+            this.expiresAt = expiresAt;
+            this.done = done;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.good.food.streaming;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+class OffsetTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffsetTracker.class);
+
+    private final Map<String, Partition> partitions = new HashMap<>();
+
+    synchronized boolean track(final Message<?> message) {
+        // Called on the consumer thread, the only one allowed to seek. A redelivered message takes over the entry of its offset
+        final var acknowledgment = this.acknowledgment(message);
+        final var offset = this.offset(message);
+
+        if(acknowledgment == null || offset == null) {
+            return true;
+        }
+
+        final var partition = this.partitions.computeIfAbsent(this.partition(message), key -> new Partition());
+
+        if(partition.failed != null && this.seek(message, partition.failed)) {
+            // The failed message and every later one of the partition are read again, the ones already received are skipped
+            final var failed = partition.failed;
+            partition.pending.tailMap(failed).clear();
+            partition.failed = null;
+
+            if(offset >= failed) {
+                return false;
+            }
+        }
+
+        partition.pending.put(offset, new Pending(acknowledgment));
+
+        return true;
+    }
+
+    void acknowledge(final Message<?> message) {
+        // Committing an offset commits every earlier one, so only the oldest finished messages of a partition are acknowledged
+        final var acknowledgment = this.complete(message);
+
+        if(acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    synchronized void fail(final Message<?> message) {
+        // A message that could be neither handled nor routed is sought back on the next message of its partition
+        final var partition = this.partitions.get(this.partition(message));
+        final var offset = this.offset(message);
+
+        if(partition != null && offset != null && partition.pending.containsKey(offset)) {
+            partition.failed = partition.failed == null ? offset : Math.min(partition.failed, offset);
+        }
+    }
+
+    synchronized void revoke(final Collection<TopicPartition> revoked) {
+        // The next owner starts from the last commit, entries left here would only hold back a partition assigned again later
+        revoked.forEach(t -> this.partitions.remove(this.partition(t.topic(), t.partition())));
+    }
+
+    synchronized int size() {
+        return this.partitions.values().stream().mapToInt(t -> t.pending.size()).sum();
+    }
+
+    private synchronized Acknowledgment complete(final Message<?> message) {
+        final var partition = this.partitions.get(this.partition(message));
+        final var offset = this.offset(message);
+
+        if(partition == null || offset == null) {
+            return null;
+        }
+
+        final var current = partition.pending.get(offset);
+        if(current != null) {
+            current.done = true;
+        }
+
+        Acknowledgment last = null;
+        while(!partition.pending.isEmpty() && partition.pending.firstEntry().getValue().done) {
+            last = partition.pending.pollFirstEntry().getValue().acknowledgment;
+        }
+
+        return last;
+    }
+
+    private boolean seek(final Message<?> message, final Long offset) {
+        final var headers = message.getHeaders();
+        final var consumer = headers.get(KafkaHeaders.CONSUMER);
+
+        if(!(consumer instanceof Consumer)) {
+            return false;
+        }
+
+        final var topic = Objects.toString(headers.get(KafkaHeaders.RECEIVED_TOPIC));
+        final var partition = headers.get(KafkaHeaders.RECEIVED_PARTITION_ID, Integer.class);
+
+        LOGGER.warn("Reading {}-{} again from offset {} after a message failed", topic, partition, offset);
+        ((Consumer<?, ?>) consumer).seek(new TopicPartition(topic, partition), offset);
+
+        return true;
+    }
+
+    private Acknowledgment acknowledgment(final Message<?> message) {
+        final var acknowledgment = message.getHeaders().get(KafkaHeaders.ACKNOWLEDGMENT);
+        return acknowledgment instanceof Acknowledgment ? (Acknowledgment) acknowledgment : null;
+    }
+
+    private Long offset(final Message<?> message) {
+        final var offset = message.getHeaders().get(KafkaHeaders.OFFSET);
+        return offset instanceof Number ? ((Number) offset).longValue() : null;
+    }
+
+    private String partition(final Message<?> message) {
+        final var headers = message.getHeaders();
+        return this.partition(Objects.toString(headers.get(KafkaHeaders.RECEIVED_TOPIC)), headers.get(KafkaHeaders.RECEIVED_PARTITION_ID));
+    }
+
+    private String partition(final String topic, final Object partition) {
+        return topic + "-" + Objects.toString(partition);
+    }
+
+    private static class Partition {
+
+        private final TreeMap<Long, Pending> pending = new TreeMap<>();
+
+        private Long failed;
+    }
+
+    private static class Pending {
+
+        private final Acknowledgment acknowledgment;
+
+        private boolean done;
+
+        private Pending(final Acknowledgment acknowledgment) {
+            this.acknowledgment = acknowledgment;
+        }
+    }
+}
@@ -1,75 +1,405 @@
 package io.good.food.streaming;
 
+import io.good.food.dto.domain.MealDTO;
 import io.good.food.dto.request.OrderInsertRequestDTO;
 import io.good.food.dto.request.OrderUpdateRequestDTO;
 import io.good.food.dto.stream.OrderInputDTO;
 import io.good.food.dto.type.ActionType;
+import io.good.food.exception.BusinessException;
+import io.good.food.exception.RetryableException;
 import io.good.food.streaming.channel.OrderChannels;
 import io.good.food.service.OrderService;
-import io.vavr.control.Try;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.control.Option;
 import ma.glasnost.orika.MapperFacade;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.cloud.stream.binder.kafka.KafkaBindingRebalanceListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static io.vavr.API.*;
 
 @Component
 @EnableBinding(OrderChannels.class)
-public class OrderConsumer {
+public class OrderConsumer implements KafkaBindingRebalanceListener {
+
+    public static final String MESSAGE_ID = "message-id";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OrderConsumer.class);
 
+    private static final long ROUTE_ATTEMPTS = 3L;
+
+    private static final Duration ROUTE_BACKOFF = Duration.ofMillis(100);
+
     private final MapperFacade mapperFacade;
 
     private final OrderService orderService;
 
+    private final IdempotencyStore idempotencyStore;
+
+    private final OrderFailureHandler orderFailureHandler;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration consumerTimeout;
+
+    private final Map<ActionType, Duration> consumerTimeouts;
+
+    private final ConsumerMode consumerMode;
+
+    private final Integer maxInFlight;
+
+    private final Integer lanes;
+
+    private final Integer batchSize;
+
+    private final Duration batchTimeout;
+
+    private final Semaphore inFlight;
+
+    private final Semaphore retriesInFlight;
+
+    private final OffsetTracker offsetTracker = new OffsetTracker();
+
+    private volatile FluxSink<Message<OrderInputDTO>> sink;
+
+    private Disposable subscription;
+
     public OrderConsumer(final MapperFacade mapperFacade,
-                         final OrderService orderService) {
+                         final OrderService orderService,
+                         final IdempotencyStore idempotencyStore,
+                         final OrderFailureHandler orderFailureHandler,
+                         final MeterRegistry meterRegistry,
+                         final Duration consumerTimeout,
+                         final Map<ActionType, Duration> consumerTimeouts,
+                         @Value("${consumer.mode:BLOCKING}") final ConsumerMode consumerMode,
+                         @Value("${consumer.max-in-flight:256}") final Integer maxInFlight,
+                         @Value("${consumer.lanes:32}") final Integer lanes,
+                         @Value("${consumer.batch.size:100}") final Integer batchSize,
+                         @Value("${consumer.batch.timeout:200}") final Long batchTimeout) {
         this.mapperFacade = mapperFacade;
         this.orderService = orderService;
+        this.idempotencyStore = idempotencyStore;
+        this.orderFailureHandler = orderFailureHandler;
+        this.meterRegistry = meterRegistry;
+        this.consumerTimeout = consumerTimeout;
+        this.consumerTimeouts = consumerTimeouts;
+        this.consumerMode = consumerMode;
+        this.maxInFlight = maxInFlight;
+        this.lanes = lanes;
+        this.batchSize = batchSize;
+        this.batchTimeout = Duration.ofMillis(batchTimeout);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.retriesInFlight = new Semaphore(maxInFlight);
+    }
+
+    @PostConstruct
+    public void start() {
+        if(ConsumerMode.REACTIVE.equals(this.consumerMode)) {
+            // Messages of the same order share a lane and are applied in arrival order, lanes run in parallel
+            this.subscription = Flux.<Message<OrderInputDTO>>create(emitter -> this.sink = emitter)
+                    .groupBy(this::lane, this.maxInFlight)
+                    .flatMap(lane -> lane.concatMap(message -> this.handle(message)
+                            .onErrorResume(throwable -> Mono.empty())
+                            .doFinally(signal -> this.inFlight.release())), this.lanes)
+                    .doOnError(throwable -> LOGGER.error("Order consumer pipeline failed, resubscribing. Error: {}", this.getMessage(throwable)))
+                    .retry()
+                    .subscribe();
+
+        } else if(ConsumerMode.BATCH.equals(this.consumerMode)) {
+            this.subscription = Flux.<Message<OrderInputDTO>>create(emitter -> this.sink = emitter)
+                    .filterWhen(this::admit)
+                    .bufferTimeout(this.batchSize, this.batchTimeout)
+                    // bufferTimeout emits on its timer whatever the demand, the batches wait here while one is written
+                    .onBackpressureBuffer()
+                    .concatMap(batch -> this.process(batch).doFinally(signal -> this.inFlight.release(batch.size())))
+                    .doOnError(throwable -> LOGGER.error("Order consumer pipeline failed, resubscribing. Error: {}", this.getMessage(throwable)))
+                    .retry()
+                    .subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if(this.subscription != null) {
+            this.sink.complete();
+            this.subscription.dispose();
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(final String bindingName, final Consumer<?, ?> consumer, final Collection<TopicPartition> partitions) {
+        // Messages of a revoked partition still in flight are not acknowledged, their next owner reads them again
+        this.offsetTracker.revoke(partitions);
     }
 
     @StreamListener(target = OrderChannels.ORDER_CONSUMER)
-    public void listener(final OrderInputDTO input) {
+    public void listener(final Message<OrderInputDTO> message) {
+        // Offsets are committed by hand once a message was handled or routed, whatever thread finishes it
+        if(!this.offsetTracker.track(message)) {
+            return;
+        }
+
+        if(this.subscription != null) {
+            // Holds the listener thread only when max-in-flight messages are pending, pushing backpressure to the binder
+            this.inFlight.acquireUninterruptibly();
+            this.sink.next(message);
+
+        } else {
+            this.handle(message)
+                    .onErrorResume(throwable -> Mono.empty())
+                    .block();
+        }
+    }
+
+    @StreamListener(target = OrderChannels.ORDER_RETRY_CONSUMER)
+    public void retryListener(final Message<OrderInputDTO> message) {
+        // The backoff is waited on a timer, the binder thread only waits when max-in-flight retries are pending
+        if(!this.offsetTracker.track(message)) {
+            return;
+        }
+
+        this.retriesInFlight.acquireUninterruptibly();
+
+        Mono.delay(this.orderFailureHandler.getDelay(message))
+                .then(this.handle(message))
+                .onErrorResume(throwable -> Mono.empty())
+                .doFinally(signal -> this.retriesInFlight.release())
+                .subscribe();
+    }
+
+    Integer lane(final Message<OrderInputDTO> message) {
+        return Math.floorMod(Objects.hashCode(this.partitionKey(message)), this.lanes);
+    }
+
+    private String partitionKey(final Message<OrderInputDTO> message) {
+        // Keyed records keep the producer's ordering unit, so each partition is split into lanes by the same key
+        final var key = message.getHeaders().get(KafkaHeaders.RECEIVED_MESSAGE_KEY);
+
+        if(key instanceof byte[]) {
+            return new String((byte[]) key, StandardCharsets.UTF_8);
+        }
+
+        if(key != null) {
+            return key.toString();
+        }
+
+        final var input = message.getPayload();
+        return Objects.equals(ActionType.CREATE, input.getAction()) ? input.getCustomerId() : input.getId();
+    }
+
+    static String key(final Message<?> message) {
+        final var headers = message.getHeaders();
+
+        if(headers.containsKey(MESSAGE_ID)) {
+            return Objects.toString(headers.get(MESSAGE_ID));
+        }
+
+        // A redelivery after a rebalance keeps the same record coordinates
+        if(headers.containsKey(KafkaHeaders.RECEIVED_TOPIC) && headers.containsKey(KafkaHeaders.OFFSET)) {
+            return String.join("-", Objects.toString(headers.get(KafkaHeaders.RECEIVED_TOPIC)),
+                    Objects.toString(headers.get(KafkaHeaders.RECEIVED_PARTITION_ID)),
+                    Objects.toString(headers.get(KafkaHeaders.OFFSET)));
+        }
+
+        return null;
+    }
+
+    Mono<Void> handle(final Message<OrderInputDTO> message) {
+        // A claim that cannot be taken yet goes to the retry destination as it is, the key is not ours to release
+        return this.claim(message)
+                .onErrorResume(throwable -> this.route(message, throwable).thenReturn(false))
+                .filter(Boolean::booleanValue)
+                .flatMap(claimed -> this.deadline(message.getPayload(), key(message))
+                        .then(this.complete(message))
+                        .onErrorResume(throwable -> this.failed(message, throwable)))
+                .then(this.acknowledge(message))
+                .doOnError(throwable -> this.offsetTracker.fail(message));
+    }
+
+    Mono<Void> deadline(final OrderInputDTO input, final String key) {
+        // Cancelling on timeout also cancels the pending Mongo and producer calls of the message
+        return this.process(input, key)
+                .timeout(this.consumerTimeouts.getOrDefault(input.getAction(), this.consumerTimeout))
+                .doOnError(TimeoutException.class, throwable -> this.timedOut(Objects.toString(input.getAction())));
+    }
+
+    Mono<Void> process(final OrderInputDTO input, final String key) {
         if(input.getAction() == null) {
             LOGGER.error("Action is required to complete the operation");
+            return Mono.empty();
+        }
 
-        } else {
-            Match(input.getAction()).of(
-                    Case($(ActionType.CREATE), i -> this.create(input)),
-                    Case($(ActionType.UPDATE), i -> this.update(input)),
-                    Case($(ActionType.DELETE), i -> this.delete(input))
-            );
+        return Match(input.getAction()).of(
+                Case($(ActionType.CREATE), i -> this.create(input, key)),
+                Case($(ActionType.UPDATE), i -> this.update(input)),
+                Case($(ActionType.DELETE), i -> this.delete(input)),
+                Case($(ActionType.ADD_MEALS), i -> this.addMeals(input, key)),
+                Case($(ActionType.REMOVE_MEALS), i -> this.removeMeals(input, key)),
+                Case($(ActionType.CHANGE_MEAL_QUANTITY), i -> this.changeMealQuantity(input, key))
+        );
+    }
+
+    Mono<Void> process(final List<Message<OrderInputDTO>> batch) {
+        final var inputs = batch.stream()
+                .map(Message::getPayload)
+                .collect(Collectors.toList());
+
+        final var keys = batch.stream()
+                .map(OrderConsumer::key)
+                .collect(Collectors.toList());
+
+        return this.orderService.batch(inputs, keys)
+                .collectList()
+                .timeout(this.consumerTimeout)
+                .doOnError(TimeoutException.class, throwable -> this.timedOut("BATCH"))
+                .flatMapIterable(Function.identity())
+                .concatMap(t -> {
+                    final var message = batch.get(t.getIndex());
+
+                    if(Objects.isNull(t.getError())) {
+                        return this.complete(message).then(this.acknowledge(message));
+                    }
+
+                    LOGGER.error("Failure processing an order {} message at batch position {}. Error: {}", t.getAction(), t.getIndex(), t.getError());
+                    // A conflict is read again on retry, anything else would fail the same way
+                    final var error = Boolean.TRUE.equals(t.getConflict()) ? new RetryableException(t.getError()) : new BusinessException(t.getError());
+                    return this.failed(message, error).then(this.acknowledge(message))
+                            .doOnError(throwable -> this.offsetTracker.fail(message))
+                            .onErrorResume(throwable -> Mono.empty());
+                })
+                .doOnError(throwable -> LOGGER.error("Failure processing an order batch. Error: {}", this.getMessage(throwable)))
+                .onErrorResume(throwable -> Flux.fromIterable(batch).concatMap(message -> this.failed(message, throwable)
+                        .then(this.acknowledge(message))
+                        .doOnError(error -> this.offsetTracker.fail(message))
+                        .onErrorResume(error -> Mono.empty())))
+                .then();
+    }
+
+    private Mono<Boolean> admit(final Message<OrderInputDTO> message) {
+        // Duplicates and messages routed before batching are done here, the batch never sees them
+        return this.claim(message)
+                .onErrorResume(throwable -> this.route(message, throwable).thenReturn(false))
+                .flatMap(claimed -> claimed ? Mono.just(true) : this.acknowledge(message).thenReturn(false))
+                .doOnNext(this::releaseDuplicate)
+                .onErrorResume(throwable -> {
+                    this.offsetTracker.fail(message);
+                    this.inFlight.release();
+                    return Mono.just(false);
+                });
+    }
+
+    private Mono<Boolean> claim(final Message<OrderInputDTO> message) {
+        return Mono.defer(() -> this.idempotencyStore.claim(key(message)))
+                .doOnNext(claimed -> {
+                    if(!claimed) {
+                        LOGGER.debug("Skipping duplicate order message {}", key(message));
+                    }
+                });
+    }
+
+    private Mono<Void> complete(final Message<OrderInputDTO> message) {
+        // The message was applied, failing to record it only risks handling a redelivery twice
+        return Mono.defer(() -> this.idempotencyStore.complete(key(message)))
+                .doOnError(error -> LOGGER.error("Failure recording a processed order message. Error: {}", this.getMessage(error)))
+                .onErrorResume(error -> Mono.empty());
+    }
+
+    private Mono<Void> failed(final Message<OrderInputDTO> message, final Throwable throwable) {
+        // The key is released first so the retried message is not taken for a duplicate
+        return Mono.defer(() -> this.idempotencyStore.release(key(message)))
+                .then(this.route(message, throwable));
+    }
+
+    private Mono<Void> route(final Message<OrderInputDTO> message, final Throwable throwable) {
+        // A message that could not be routed is never acknowledged, holding back its partition's offset until a redelivery
+        return Mono.defer(() -> this.orderFailureHandler.failed(message, throwable))
+                .retryBackoff(ROUTE_ATTEMPTS, ROUTE_BACKOFF)
+                .doOnError(error -> LOGGER.error("Failure routing a failed order message. Error: {}", this.getMessage(error)));
+    }
+
+    private Mono<Void> acknowledge(final Message<OrderInputDTO> message) {
+        return Mono.fromRunnable(() -> this.offsetTracker.acknowledge(message));
+    }
+
+    private void timedOut(final String action) {
+        LOGGER.error("Order {} message processing timed out", action);
+        this.meterRegistry.counter("order.consumer.timeouts", "action", action).increment();
+    }
+
+    private void releaseDuplicate(final Boolean claimed) {
+        if(!claimed) {
+            this.inFlight.release();
         }
     }
 
-    private OrderInputDTO create(final OrderInputDTO input) {
+    private Mono<Void> create(final OrderInputDTO input, final String key) {
+        // Keyed on the message, so a retry after an insert that timed out does not create a second order
         final var request = this.mapperFacade.map(input, OrderInsertRequestDTO.class);
 
-        Try.of(() -> this.orderService.create(request).toProcessor().block())
-                .onFailure(throwable -> LOGGER.error("Failure processing an order creation message. Error: {}", this.getMessage(throwable)));
-
-        return input;
+        return Mono.defer(() -> this.orderService.create(request, key))
+                .doOnError(throwable -> LOGGER.error("Failure processing an order creation message. Error: {}", this.getMessage(throwable)))
+                .then();
     }
 
-    private OrderInputDTO update(final OrderInputDTO input) {
+    private Mono<Void> update(final OrderInputDTO input) {
         final var request = this.mapperFacade.map(input, OrderUpdateRequestDTO.class);
 
-        Try.of(() -> this.orderService.update(request).toProcessor().block())
-                .onFailure(throwable -> LOGGER.error("Failure processing an order update message. Error: {}", this.getMessage(throwable)));
+        return Mono.defer(() -> this.orderService.update(request))
+                .doOnError(throwable -> LOGGER.error("Failure processing an order update message. Error: {}", this.getMessage(throwable)))
+                .then();
+    }
 
-        return input;
+    private Mono<Void> delete(final OrderInputDTO input) {
+        return Mono.defer(() -> this.orderService.delete(input.getId()))
+                .doOnError(throwable -> LOGGER.error("Failure processing an order delete message. Error: {}", this.getMessage(throwable)))
+                .then();
     }
 
-    private OrderInputDTO delete(final OrderInputDTO input) {
-        Try.of(() -> this.orderService.delete(input.getId()).toProcessor().block())
-                .onFailure(throwable -> LOGGER.error("Failure processing an order delete message. Error: {}", this.getMessage(throwable)));
+    private Mono<Void> addMeals(final OrderInputDTO input, final String key) {
+        // Keyed on the message like creations, so a retry after the meals were added does not add them again
+        return Mono.defer(() -> this.orderService.addMeals(input.getId(), input.getMeals(), key))
+                .doOnError(throwable -> LOGGER.error("Failure processing an order meal addition message. Error: {}", this.getMessage(throwable)))
+                .then();
+    }
+
+    private Mono<Void> removeMeals(final OrderInputDTO input, final String key) {
+        return Mono.defer(() -> this.orderService.removeMeals(input.getId(), Option.of(input.getMeals())
+                        .map(meals -> meals.stream().map(MealDTO::getId).collect(Collectors.toList()))
+                        .getOrNull(), key))
+                .doOnError(throwable -> LOGGER.error("Failure processing an order meal removal message. Error: {}", this.getMessage(throwable)))
+                .then();
+    }
 
-        return input;
+    private Mono<Void> changeMealQuantity(final OrderInputDTO input, final String key) {
+        return Mono.defer(() -> this.orderService.changeMealQuantity(input.getId(), input.getMeals(), key))
+                .doOnError(throwable -> LOGGER.error("Failure processing an order meal quantity message. Error: {}", this.getMessage(throwable)))
+                .then();
     }
 
     private String getMessage(final Throwable throwable) {
@@ -0,0 +1,117 @@
+package io.good.food.streaming;
+
+import io.good.food.dto.stream.OrderInputDTO;
+import io.good.food.exception.BusinessException;
+import io.good.food.streaming.channel.OrderChannels;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+@Component
+public class OrderFailureHandler {
+
+    public static final String RETRY_ATTEMPT = "retry-attempt";
+    public static final String RETRY_DUE = "retry-due";
+    public static final String ERROR_MESSAGE = "error-message";
+    public static final String ERROR_CLASS = "error-class";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderFailureHandler.class);
+
+    private final OrderChannels orderChannels;
+
+    private final Integer maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Double multiplier;
+
+    private final Duration maxBackoff;
+
+    @Autowired
+    public OrderFailureHandler(final OrderChannels orderChannels,
+                               @Value("${retry.max-attempts:3}") final Integer maxAttempts,
+                               @Value("${retry.backoff.initial:1000}") final Long initialBackoff,
+                               @Value("${retry.backoff.multiplier:2.0}") final Double multiplier,
+                               @Value("${retry.backoff.max:60000}") final Long maxBackoff) {
+        this.orderChannels = orderChannels;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoff);
+        this.multiplier = multiplier;
+        this.maxBackoff = Duration.ofMillis(maxBackoff);
+    }
+
+    public Mono<Void> failed(final Message<OrderInputDTO> message, final Throwable throwable) {
+        final var attempt = this.getAttempt(message) + 1;
+
+        if(this.isRetryable(throwable) && attempt <= this.maxAttempts) {
+            final var due = System.currentTimeMillis() + this.getBackoff(attempt).toMillis();
+            final var retry = this.build(message, throwable, attempt)
+                    .setHeader(RETRY_DUE, due)
+                    .build();
+
+            return this.send(this.orderChannels.orderRetryProducer(), retry)
+                    .doOnSuccess(t -> LOGGER.warn("Order message scheduled for retry attempt {}", attempt));
+        }
+
+        final var dead = this.build(message, throwable, attempt - 1).build();
+        return this.send(this.orderChannels.orderDlqProducer(), dead)
+                .doOnSuccess(t -> LOGGER.error("Order message sent to the dead letter destination after {} attempts", attempt));
+    }
+
+    public Duration getDelay(final Message<?> message) {
+        final var due = message.getHeaders().get(RETRY_DUE);
+        if(due == null) {
+            return Duration.ZERO;
+        }
+
+        return Duration.ofMillis(Math.max(0L, Long.parseLong(due.toString()) - System.currentTimeMillis()));
+    }
+
+    Duration getBackoff(final Integer attempt) {
+        final var backoff = this.initialBackoff.toMillis() * Math.pow(this.multiplier, attempt - 1);
+        return Duration.ofMillis((long) Math.min(backoff, this.maxBackoff.toMillis()));
+    }
+
+    boolean isRetryable(final Throwable throwable) {
+        return !(throwable instanceof BusinessException)
+                && ExceptionUtils.indexOfType(throwable, DataIntegrityViolationException.class) < 0;
+    }
+
+    private Integer getAttempt(final Message<?> message) {
+        final var attempt = message.getHeaders().get(RETRY_ATTEMPT);
+        return attempt == null ? 0 : Integer.parseInt(attempt.toString());
+    }
+
+    private MessageBuilder<OrderInputDTO> build(final Message<OrderInputDTO> message, final Throwable throwable, final Integer attempt) {
+        final var builder = MessageBuilder.withPayload(message.getPayload())
+                .setHeader(RETRY_ATTEMPT, attempt)
+                .setHeader(ERROR_MESSAGE, StringUtils.defaultString(throwable.getMessage(), throwable.toString()))
+                .setHeader(ERROR_CLASS, throwable.getClass().getName());
+
+        // Retries keep the key of the first delivery, so idempotency and created orders follow the original message
+        final var key = OrderConsumer.key(message);
+        if(key != null) {
+            builder.setHeader(OrderConsumer.MESSAGE_ID, key);
+        }
+
+        return builder;
+    }
+
+    private Mono<Void> send(final MessageChannel channel, final Message<OrderInputDTO> message) {
+        return Mono.fromCallable(() -> channel.send(message))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+}
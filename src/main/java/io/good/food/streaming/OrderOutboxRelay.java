@@ -0,0 +1,91 @@
+package io.good.food.streaming;
+
+import io.good.food.entity.OrderOutbox;
+import io.good.food.repository.OrderOutboxRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(value = "outbox.enabled", havingValue = "true")
+public class OrderOutboxRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    private final OrderProducer orderProducer;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    private final Integer batchSize;
+
+    private final Duration period;
+
+    private final Duration lease;
+
+    private Disposable subscription;
+
+    @Autowired
+    public OrderOutboxRelay(final OrderProducer orderProducer,
+                            final OrderOutboxRepository orderOutboxRepository,
+                            @Value("${outbox.relay.batch-size:500}") final Integer batchSize,
+                            @Value("${outbox.relay.period:500}") final Long period,
+                            @Value("${outbox.relay.lease:60000}") final Long lease) {
+        this.orderProducer = orderProducer;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.batchSize = batchSize;
+        this.period = Duration.ofMillis(period);
+        this.lease = Duration.ofMillis(lease);
+    }
+
+    @PostConstruct
+    public void start() {
+        this.subscription = Flux.interval(this.period)
+                .onBackpressureDrop()
+                .concatMap(tick -> this.relay()
+                        .doOnError(throwable -> LOGGER.error("Failure relaying order events. Error: {}", throwable.getMessage()))
+                        .onErrorResume(throwable -> Mono.empty()))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.subscription.dispose();
+    }
+
+    public Mono<Long> relay() {
+        final var owner = UUID.randomUUID().toString();
+        final var now = LocalDateTime.now();
+
+        // Events are claimed for the lease before they are sent, so other instances skip them, and the events of an order
+        // are marked sent together once they were acknowledged; only events of a relay that stopped in between are sent
+        // again after the lease. Events of the same order are sent in sequence and a failure stops the rest of that
+        // order's events, which are claimed again once the lease is over; distinct orders are sent concurrently
+        return this.orderOutboxRepository.claim(owner, now, now.plus(this.lease), this.batchSize)
+                .groupBy(t -> Objects.toString(t.getOrderId(), StringUtils.EMPTY))
+                .flatMap(this::send, this.batchSize)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> send(final Flux<OrderOutbox> events) {
+        // The events acknowledged before a failure are still marked sent
+        return events.concatMap(t -> this.orderProducer.output(t.getEvent()).thenReturn(t.getId()))
+                .onErrorResume(throwable -> Flux.empty())
+                .collectList()
+                .flatMap(this.orderOutboxRepository::markSent);
+    }
+
+}
@@ -3,36 +3,163 @@ package io.good.food.streaming;
 import io.good.food.dto.response.OrderResponseDTO;
 import io.good.food.dto.stream.OrderOutputDTO;
 import io.good.food.dto.type.ActionType;
+import io.good.food.exception.RetryableException;
 import io.good.food.streaming.channel.OrderChannels;
+import io.vavr.control.Option;
 import ma.glasnost.orika.MapperFacade;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.UnicastProcessor;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class OrderProducer {
 
+    public static final String PARTITION_KEY = "partition-key";
+
+    public static final String SEND_ID = "send-id";
+
+    public static final String RESULTS = "order-producer-results";
+
+    public static final String ERRORS = "order-out-v1.errors";
+
     private final MapperFacade mapperFacade;
 
     private final OrderChannels orderChannels;
 
+    private final PartitionKeyType partitionKeyType;
+
+    private final Boolean recordMetadata;
+
+    private final Map<String, MonoSink<Void>> pending = new ConcurrentHashMap<>();
+
+    private final FluxSink<Send> sends;
+
+    private final Disposable subscription;
+
     @Autowired
     public OrderProducer(final MapperFacade mapperFacade,
-                         final OrderChannels orderChannels) {
+                         final OrderChannels orderChannels,
+                         @Value("${producer.max-in-flight:64}") final Integer maxInFlight,
+                         @Value("${producer.partition-key:ORDER_ID}") final PartitionKeyType partitionKeyType,
+                         @Value("${producer.record-metadata:true}") final Boolean recordMetadata) {
         this.mapperFacade = mapperFacade;
         this.orderChannels = orderChannels;
+        this.partitionKeyType = partitionKeyType;
+        this.recordMetadata = recordMetadata;
+
+        // Sends wait in this queue until one of the max-in-flight unacknowledged ones is answered, no thread waits for the broker
+        final var processor = UnicastProcessor.<Send>create(Queues.<Send>unboundedMultiproducer().get());
+        this.sends = processor.sink();
+        this.subscription = processor.flatMap(this::send, maxInFlight).subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.sends.complete();
+        this.subscription.dispose();
     }
 
     public Mono<OrderResponseDTO> output(final OrderResponseDTO response, final ActionType action) {
-        final var output = this.mapperFacade.map(response, OrderOutputDTO.class);
-        output.setAction(action);
+        return Mono.fromCallable(() -> {
+                    final var output = this.mapperFacade.map(response, OrderOutputDTO.class);
+                    output.setAction(action);
+                    return output;
+                })
+                .flatMap(this::output)
+                .thenReturn(response);
+    }
+
+    public Mono<OrderOutputDTO> output(final OrderOutputDTO output) {
+        // The broker's answer arrives on the Kafka producer thread, the caller goes on elsewhere so it never blocks it
+        return Mono.<Void>create(sink -> this.sends.next(new Send(output, sink)))
+                .publishOn(Schedulers.parallel())
+                .thenReturn(output);
+    }
 
-        final var message = MessageBuilder.withPayload(output)
+    @ServiceActivator(inputChannel = RESULTS)
+    public void acknowledged(final Message<?> message) {
+        Option.of(this.pending.remove(Objects.toString(message.getHeaders().get(SEND_ID)))).forEach(MonoSink::success);
+    }
+
+    @ServiceActivator(inputChannel = ERRORS)
+    public void failed(final ErrorMessage message) {
+        final var failed = message.getPayload() instanceof MessagingException ? ((MessagingException) message.getPayload()).getFailedMessage() : message.getOriginalMessage();
+
+        Option.of(failed)
+                .flatMap(t -> Option.of(this.pending.remove(Objects.toString(t.getHeaders().get(SEND_ID)))))
+                .forEach(sink -> sink.error(new RetryableException("Order event was not acknowledged: " + message.getPayload().getMessage())));
+    }
+
+    String key(final OrderOutputDTO output) {
+        if(PartitionKeyType.CUSTOMER_ID.equals(this.partitionKeyType) && output.getCustomerId() != null) {
+            return output.getCustomerId();
+        }
+
+        return output.getId();
+    }
+
+    private Mono<Void> send(final Send send) {
+        // The binder sends asynchronously and reports the broker's answer on the results or the errors channel;
+        // without record metadata a send is done once the binder accepted it
+        return Mono.<Void>create(sink -> {
+                    final var id = UUID.randomUUID().toString();
+                    this.pending.put(id, sink);
+                    sink.onDispose(() -> this.pending.remove(id));
+
+                    if(!this.orderChannels.orderProducer().send(this.message(send.output, id))) {
+                        sink.error(new RetryableException("Order event was not acknowledged"));
+                    } else if(!this.recordMetadata) {
+                        sink.success();
+                    }
+                })
+                .doOnSuccess(t -> send.sink.success())
+                .onErrorResume(throwable -> {
+                    send.sink.error(throwable);
+                    return Mono.empty();
+                });
+    }
+
+    private Message<OrderOutputDTO> message(final OrderOutputDTO output, final String id) {
+        final var key = this.key(output);
+
+        // The record key sends every event of the same key to the same partition of order-out-v1
+        return MessageBuilder.withPayload(output)
+                .setHeader(PARTITION_KEY, key)
+                .setHeader(SEND_ID, id)
+                .setHeader(KafkaHeaders.MESSAGE_KEY, Objects.isNull(key) ? null : key.getBytes(StandardCharsets.UTF_8))
                 .build();
+    }
 
-        return Mono.just(this.orderChannels.orderProducer().send(message))
-                .thenReturn(response);
+    private static class Send {
+
+        private final OrderOutputDTO output;
+
+        private final MonoSink<Void> sink;
+
+        private Send(final OrderOutputDTO output, final MonoSink<Void> sink) {
+            this.output = output;
+            this.sink = sink;
+        }
     }
 
 }
@@ -0,0 +1,26 @@
+package io.good.food.streaming;
+
+import io.good.food.dto.stream.OrderOutputDTO;
+import io.good.food.service.OrderStatusFeed;
+import io.good.food.streaming.channel.OrderChannels;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OrderStatusConsumer {
+
+    private final OrderStatusFeed orderStatusFeed;
+
+    @Autowired
+    public OrderStatusConsumer(final OrderStatusFeed orderStatusFeed) {
+        this.orderStatusFeed = orderStatusFeed;
+    }
+
+    @StreamListener(target = OrderChannels.ORDER_STATUS_CONSUMER)
+    public void listener(final OrderOutputDTO event) {
+        // The binding has no group, so every instance reads every event whichever instance wrote the order
+        this.orderStatusFeed.publish(event);
+    }
+
+}
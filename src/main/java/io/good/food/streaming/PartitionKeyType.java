@@ -0,0 +1,8 @@
+package io.good.food.streaming;
+
+public enum PartitionKeyType {
+
+    ORDER_ID,
+    CUSTOMER_ID
+
+}
@@ -1,5 +1,6 @@
 package io.good.food.streaming.channel;
 
+import org.springframework.cloud.stream.annotation.Input;
 import org.springframework.cloud.stream.annotation.Output;
 import org.springframework.messaging.SubscribableChannel;
 
@@ -7,6 +8,10 @@ public interface OrderChannels {
 
     String ORDER_CONSUMER = "order-consumer";
     String ORDER_PRODUCER = "order-producer";
+    String ORDER_RETRY_CONSUMER = "order-retry-consumer";
+    String ORDER_RETRY_PRODUCER = "order-retry-producer";
+    String ORDER_DLQ_PRODUCER = "order-dlq-producer";
+    String ORDER_STATUS_CONSUMER = "order-status-consumer";
 
     @Output(ORDER_CONSUMER)
     SubscribableChannel orderConsumer();
@@ -14,4 +19,16 @@ public interface OrderChannels {
     @Output(ORDER_PRODUCER)
     SubscribableChannel orderProducer();
 
+    @Input(ORDER_RETRY_CONSUMER)
+    SubscribableChannel orderRetryConsumer();
+
+    @Output(ORDER_RETRY_PRODUCER)
+    SubscribableChannel orderRetryProducer();
+
+    @Output(ORDER_DLQ_PRODUCER)
+    SubscribableChannel orderDlqProducer();
+
+    @Input(ORDER_STATUS_CONSUMER)
+    SubscribableChannel orderStatusConsumer();
+
 }
@@ -0,0 +1,241 @@
+package io.good.food.streaming.codec;
+
+import io.good.food.dto.domain.MealDTO;
+import io.good.food.dto.stream.OrderInputDTO;
+import io.good.food.dto.stream.OrderOutputDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.dto.type.MealType;
+import io.good.food.dto.type.OrderStatusType;
+import org.springframework.util.MimeType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderBinaryCodec {
+
+    public static final MimeType MIME_TYPE = MimeType.valueOf("application/x-order-binary");
+
+    private static final int VERSION = 1;
+
+    private static final int MAX_MEALS = 10000;
+
+    // An id, date flag, description, quantity, note and type take at least one byte each
+    private static final int MIN_MEAL_BYTES = 6;
+
+    public byte[] encode(final OrderInputDTO input) {
+        return this.encode(input.getId(), input.getAction(), input.getCreationDate(), input.getCustomerId(), input.getMeals(), input.getStatus());
+    }
+
+    public byte[] encode(final OrderOutputDTO output) {
+        return this.encode(output.getId(), output.getAction(), output.getCreationDate(), output.getCustomerId(), output.getMeals(), output.getStatus());
+    }
+
+    public OrderInputDTO decodeInput(final byte[] bytes) {
+        final var output = this.decodeOutput(bytes);
+
+        final var input = new OrderInputDTO();
+        input.setId(output.getId());
+        input.setAction(output.getAction());
+        input.setCreationDate(output.getCreationDate());
+        input.setCustomerId(output.getCustomerId());
+        input.setMeals(output.getMeals());
+        input.setStatus(output.getStatus());
+
+        return input;
+    }
+
+    public OrderOutputDTO decodeOutput(final byte[] bytes) {
+        try(final var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            final var version = in.readUnsignedByte();
+            if(version != VERSION) {
+                throw new IllegalArgumentException("Unsupported order codec version " + version);
+            }
+
+            final var output = new OrderOutputDTO();
+            output.setId(this.readString(in));
+            output.setAction(this.readEnum(in, ActionType.values()));
+            output.setCreationDate(this.readDate(in));
+            output.setCustomerId(this.readString(in));
+            output.setStatus(this.readEnum(in, OrderStatusType.values()));
+            output.setMeals(this.readMeals(in));
+
+            return output;
+
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] encode(final String id,
+                          final ActionType action,
+                          final LocalDateTime creationDate,
+                          final String customerId,
+                          final List<MealDTO> meals,
+                          final OrderStatusType status) {
+        final var bytes = new ByteArrayOutputStream(64);
+
+        try(final var out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            this.writeString(out, id);
+            this.writeEnum(out, action);
+            this.writeDate(out, creationDate);
+            this.writeString(out, customerId);
+            this.writeEnum(out, status);
+            this.writeMeals(out, meals);
+
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private void writeMeals(final DataOutputStream out, final List<MealDTO> meals) throws IOException {
+        if(meals == null) {
+            this.writeVarLong(out, 0);
+            return;
+        }
+
+        this.writeVarLong(out, meals.size() + 1L);
+
+        for(final var meal : meals) {
+            this.writeString(out, meal.getId());
+            this.writeDate(out, meal.getCreationDate());
+            this.writeString(out, meal.getDescription());
+            this.writeString(out, meal.getQuantity());
+            this.writeString(out, meal.getNote());
+            this.writeEnum(out, meal.getType());
+        }
+    }
+
+    private List<MealDTO> readMeals(final DataInputStream in) throws IOException {
+        final var size = this.readVarLong(in);
+        if(size == 0) {
+            return null;
+        }
+
+        // Lengths come from the payload, so they are checked before anything is allocated for them
+        final var count = size - 1;
+        if(count > MAX_MEALS || count * MIN_MEAL_BYTES > in.available()) {
+            throw new IllegalArgumentException("Invalid order codec meal count " + count);
+        }
+
+        final var meals = new ArrayList<MealDTO>((int) count);
+
+        for(var i = 1; i < size; i++) {
+            final var meal = new MealDTO();
+            meal.setId(this.readString(in));
+            meal.setCreationDate(this.readDate(in));
+            meal.setDescription(this.readString(in));
+            meal.setQuantity(this.readString(in));
+            meal.setNote(this.readString(in));
+            meal.setType(this.readEnum(in, MealType.values()));
+            meals.add(meal);
+        }
+
+        return meals;
+    }
+
+    private void writeString(final DataOutputStream out, final String value) throws IOException {
+        if(value == null) {
+            this.writeVarLong(out, 0);
+            return;
+        }
+
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+        final var length = this.readVarLong(in);
+        if(length == 0) {
+            return null;
+        }
+
+        if(length - 1 > in.available()) {
+            throw new IllegalArgumentException("Invalid order codec string length " + (length - 1));
+        }
+
+        final var bytes = new byte[(int) length - 1];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeEnum(final DataOutputStream out, final Enum<?> value) throws IOException {
+        out.writeByte(value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private <T extends Enum<T>> T readEnum(final DataInputStream in, final T[] values) throws IOException {
+        final var ordinal = in.readUnsignedByte();
+        if(ordinal > values.length) {
+            throw new IllegalArgumentException("Invalid order codec enum ordinal " + ordinal);
+        }
+
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+
+    private void writeDate(final DataOutputStream out, final LocalDateTime value) throws IOException {
+        if(value == null) {
+            out.writeByte(0);
+            return;
+        }
+
+        out.writeByte(1);
+        final var seconds = value.toEpochSecond(ZoneOffset.UTC);
+        this.writeVarLong(out, (seconds << 1) ^ (seconds >> 63));
+        this.writeVarLong(out, value.getNano());
+    }
+
+    private LocalDateTime readDate(final DataInputStream in) throws IOException {
+        if(in.readUnsignedByte() == 0) {
+            return null;
+        }
+
+        final var zigzag = this.readVarLong(in);
+        final var seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+        final var nanos = (int) this.readVarLong(in);
+
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+        var remaining = value;
+
+        while((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+
+        out.writeByte((int) remaining);
+    }
+
+    private long readVarLong(final DataInputStream in) throws IOException {
+        var value = 0L;
+        var shift = 0;
+
+        while(true) {
+            final var b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if((b & 0x80) == 0) {
+                return value;
+            }
+
+            shift += 7;
+            if(shift > 63) {
+                throw new IllegalArgumentException("Invalid order codec varint");
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.good.food.streaming.codec;
+
+import io.good.food.dto.stream.OrderInputDTO;
+import io.good.food.dto.stream.OrderOutputDTO;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+
+public class OrderBinaryMessageConverter extends AbstractMessageConverter {
+
+    private final OrderBinaryCodec orderBinaryCodec;
+
+    public OrderBinaryMessageConverter(final OrderBinaryCodec orderBinaryCodec) {
+        super(OrderBinaryCodec.MIME_TYPE);
+        // Messages without the binary content type keep going to the JSON converter
+        this.setStrictContentTypeMatch(true);
+        this.orderBinaryCodec = orderBinaryCodec;
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+        return OrderInputDTO.class.equals(clazz) || OrderOutputDTO.class.equals(clazz);
+    }
+
+    @Override
+    protected Object convertFromInternal(final Message<?> message, final Class<?> targetClass, final Object conversionHint) {
+        if(!(message.getPayload() instanceof byte[])) {
+            return null;
+        }
+
+        final var payload = (byte[]) message.getPayload();
+
+        return OrderInputDTO.class.equals(targetClass) ? this.orderBinaryCodec.decodeInput(payload) : this.orderBinaryCodec.decodeOutput(payload);
+    }
+
+    @Override
+    protected Object convertToInternal(final Object payload, final MessageHeaders headers, final Object conversionHint) {
+        if(payload instanceof OrderInputDTO) {
+            return this.orderBinaryCodec.encode((OrderInputDTO) payload);
+        }
+
+        return payload instanceof OrderOutputDTO ? this.orderBinaryCodec.encode((OrderOutputDTO) payload) : null;
+    }
+}
@@ -0,0 +1,46 @@
+package io.good.food.configuration;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.bson.Document;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@TestConfiguration
+public class ReplicaSetConfiguration {
+
+    public static final String REPLICA_SET = "spring.mongodb.embedded.storage.repl-set-name=rs0";
+
+    // Transactions need 4.0 or later, the default embedded version is older
+    public static final String VERSION = "spring.mongodb.embedded.version=4.0.2";
+
+    @Bean
+    public static BeanPostProcessor replicaSetInitializer() {
+        // The single member has to be primary before the first beans read from Mongo at startup
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if(bean instanceof MongoClient) {
+                    initiate((MongoClient) bean);
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    private static void initiate(final MongoClient mongoClient) {
+        final var admin = mongoClient.getDatabase("admin");
+
+        Mono.from(admin.runCommand(new Document("replSetInitiate", new Document())))
+                .onErrorResume(throwable -> Mono.empty())
+                .then(Mono.defer(() -> Mono.from(admin.runCommand(new Document("isMaster", 1))))
+                        .filter(t -> Boolean.TRUE.equals(t.getBoolean("ismaster")))
+                        .repeatWhenEmpty(30, repeat -> repeat.delayElements(Duration.ofMillis(200))))
+                .block(Duration.ofSeconds(30));
+    }
+}
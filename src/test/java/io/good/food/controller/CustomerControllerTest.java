@@ -5,9 +5,11 @@ import io.good.food.Application;
 import io.good.food.configuration.RandomBeanConfiguration;
 import io.good.food.dto.request.CustomerInsertRequestDTO;
 import io.good.food.dto.request.CustomerUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
 import io.good.food.dto.response.CustomerResponseDTO;
 import io.good.food.entity.Customer;
 import io.good.food.repository.CustomerRepository;
+import io.good.food.service.CustomerSuidFilter;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -15,10 +17,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(classes={Application.class, RandomBeanConfiguration.class})
@@ -29,17 +36,21 @@ public class CustomerControllerTest {
 
     private final CustomerRepository customerRepository;
 
+    private final CustomerSuidFilter customerSuidFilter;
+
     private final EnhancedRandom enhancedRandom;
 
     private final WebTestClient webTestClient;
 
     @Autowired
     public CustomerControllerTest(final CustomerRepository customerRepository,
+                                  final CustomerSuidFilter customerSuidFilter,
                                   final EnhancedRandom enhancedRandom,
                                   final WebTestClient webTestClient) {
         this.enhancedRandom = enhancedRandom;
         this.webTestClient = webTestClient;
         this.customerRepository = customerRepository;
+        this.customerSuidFilter = customerSuidFilter;
     }
 
     @BeforeAll
@@ -66,6 +77,34 @@ public class CustomerControllerTest {
                 });
     }
 
+    @Test
+    void batchGet(){
+        this.webTestClient.post()
+                .uri("/customers/batch-get")
+                .body(Mono.just(List.of("suid", "NOT_FOUND")), List.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BatchGetResponseDTO<CustomerResponseDTO>>>() {})
+                .value(list -> {
+                    assertEquals(2, list.size());
+
+                    final var results = list.stream().collect(Collectors.toMap(BatchGetResponseDTO::getKey, Function.identity()));
+                    assertEquals("suid", results.get("suid").getValue().getSuid());
+                    assertNull(results.get("suid").getError());
+                    assertNull(results.get("NOT_FOUND").getValue());
+                    assertEquals("Customer not found", results.get("NOT_FOUND").getError());
+                });
+
+        this.webTestClient.get()
+                .uri(builder -> builder.path("/customers").queryParam("suids", "suid").build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BatchGetResponseDTO<CustomerResponseDTO>>>() {})
+                .value(list -> assertEquals("suid", list.get(0).getValue().getSuid()));
+    }
+
     @Test
     void create(){
         final var request = this.enhancedRandom.nextObject(CustomerInsertRequestDTO.class);
@@ -134,6 +173,7 @@ public class CustomerControllerTest {
         customer.setSuid("suid");
 
         this.customerRepository.insert(customer).block();
+        this.customerSuidFilter.put(customer.getSuid());
     }
 
 }
\ No newline at end of file
@@ -5,10 +5,12 @@ import io.good.food.Application;
 import io.good.food.configuration.RandomBeanConfiguration;
 import io.good.food.dto.request.MealInsertRequestDTO;
 import io.good.food.dto.request.MealUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
 import io.good.food.dto.response.MealResponseDTO;
 import io.good.food.dto.type.MealType;
 import io.good.food.entity.Meal;
 import io.good.food.repository.MealRepository;
+import io.good.food.service.MealCatalog;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -16,10 +18,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(classes={Application.class, RandomBeanConfiguration.class})
@@ -30,17 +37,21 @@ public class MealControllerTest {
 
     private final MealRepository mealRepository;
 
+    private final MealCatalog mealCatalog;
+
     private final EnhancedRandom enhancedRandom;
 
     private final WebTestClient webTestClient;
 
     @Autowired
     public MealControllerTest(final MealRepository mealRepository,
+                              final MealCatalog mealCatalog,
                               final EnhancedRandom enhancedRandom,
                               final WebTestClient webTestClient) {
         this.enhancedRandom = enhancedRandom;
         this.webTestClient = webTestClient;
         this.mealRepository = mealRepository;
+        this.mealCatalog = mealCatalog;
     }
 
     @BeforeAll
@@ -62,7 +73,7 @@ public class MealControllerTest {
                 .value(list -> {
                     assertFalse(list.isEmpty());
 
-                    final var item = list.get(0);
+                    final var item = list.stream().filter(t -> meal.getId().equals(t.getId())).findFirst().orElseThrow();
 
                     assertEquals(meal.getCreationDate(), item.getCreationDate());
                     assertEquals(meal.getId(), item.getId());
@@ -72,6 +83,37 @@ public class MealControllerTest {
                 });
     }
 
+    @Test
+    void batchGet(){
+        final var meal = this.mealRepository.findAll().blockFirst();
+        final var upperCase = meal.getId().toUpperCase();
+
+        this.webTestClient.post()
+                .uri("/meals/batch-get")
+                .body(Mono.just(List.of(upperCase, "NOT_FOUND")), List.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BatchGetResponseDTO<MealResponseDTO>>>() {})
+                .value(list -> {
+                    assertEquals(2, list.size());
+
+                    final var results = list.stream().collect(Collectors.toMap(BatchGetResponseDTO::getKey, Function.identity()));
+                    assertEquals(meal.getId(), results.get(upperCase).getValue().getId());
+                    assertNull(results.get(upperCase).getError());
+                    assertNull(results.get("NOT_FOUND").getValue());
+                    assertEquals("Meal not found", results.get("NOT_FOUND").getError());
+                });
+
+        this.webTestClient.get()
+                .uri(builder -> builder.path("/meals").queryParam("ids", meal.getId()).build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BatchGetResponseDTO<MealResponseDTO>>>() {})
+                .value(list -> assertEquals(meal.getDescription(), list.get(0).getValue().getDescription()));
+    }
+
     @Test
     void findById(){
         final var meal = this.mealRepository.findAll().blockFirst();
@@ -154,6 +196,7 @@ public class MealControllerTest {
         final var meal = this.enhancedRandom.nextObject(Meal.class, "id");
 
         this.mealRepository.insert(meal).block();
+        this.mealCatalog.refresh().block();
     }
 
 }
\ No newline at end of file
@@ -3,12 +3,16 @@ package io.good.food.controller;
 import io.github.benas.randombeans.api.EnhancedRandom;
 import io.good.food.Application;
 import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.configuration.WebConfiguration;
 import io.good.food.dto.request.OrderInsertRequestDTO;
 import io.good.food.dto.request.OrderUpdateRequestDTO;
+import io.good.food.dto.response.BatchGetResponseDTO;
+import io.good.food.dto.response.BulkResultDTO;
 import io.good.food.dto.response.OrderResponseDTO;
 import io.good.food.dto.type.OrderStatusType;
 import io.good.food.entity.Order;
 import io.good.food.repository.OrderRepository;
+import io.good.food.service.PageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -16,11 +20,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -84,6 +97,96 @@ public class OrderControllerTest {
                 });
     }
 
+    @Test
+    void batchGet(){
+        final var first = this.createSample();
+        final var second = this.createSample();
+
+        this.webTestClient.post()
+                .uri("/orders/batch-get")
+                .body(Mono.just(List.of(first.getId(), "NOT_FOUND", second.getId())), List.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BatchGetResponseDTO<OrderResponseDTO>>>() {})
+                .value(list -> {
+                    assertEquals(3, list.size());
+
+                    final var results = list.stream().collect(Collectors.toMap(BatchGetResponseDTO::getKey, Function.identity()));
+                    assertEquals(first.getStatus(), results.get(first.getId()).getValue().getStatus());
+                    assertEquals(second.getCustomerId(), results.get(second.getId()).getValue().getCustomerId());
+                    assertNull(results.get(first.getId()).getError());
+                    assertNull(results.get("NOT_FOUND").getValue());
+                    assertEquals("Order not found", results.get("NOT_FOUND").getError());
+                });
+
+        this.webTestClient.get()
+                .uri(builder -> builder.path("/orders").queryParam("ids", first.getId()).build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BatchGetResponseDTO<OrderResponseDTO>>>() {})
+                .value(list -> assertEquals(first.getId(), list.get(0).getValue().getId()));
+
+        // Hex ids are case insensitive, the result keeps the key as it was asked for
+        this.webTestClient.get()
+                .uri(builder -> builder.path("/orders").queryParam("ids", first.getId().toUpperCase()).build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BatchGetResponseDTO<OrderResponseDTO>>>() {})
+                .value(list -> {
+                    assertEquals(first.getId().toUpperCase(), list.get(0).getKey());
+                    assertEquals(first.getId(), list.get(0).getValue().getId());
+                });
+    }
+
+    @Test
+    void findAllUnpaged(){
+        IntStream.range(0, 3).forEach(i -> this.createSample());
+
+        // Without size or token every order is listed and no page token is returned
+        this.webTestClient.get()
+                .uri("/orders")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .doesNotExist(PageService.NEXT_PAGE_TOKEN)
+                .expectBodyList(OrderResponseDTO.class)
+                .hasSize(3);
+    }
+
+    @Test
+    void findAllPaged(){
+        IntStream.range(0, 3).forEach(i -> this.createSample());
+
+        final var first = this.webTestClient.get()
+                .uri("/orders?size=2")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(OrderResponseDTO.class)
+                .hasSize(2)
+                .returnResult();
+
+        final var token = first.getResponseHeaders().getFirst(PageService.NEXT_PAGE_TOKEN);
+        assertNotNull(token);
+
+        this.webTestClient.get()
+                .uri(builder -> builder.path("/orders").queryParam("size", 2).queryParam("token", token).build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .doesNotExist(PageService.NEXT_PAGE_TOKEN)
+                .expectBodyList(OrderResponseDTO.class)
+                .value(list -> {
+                    assertEquals(1, list.size());
+                    assertTrue(first.getResponseBody().stream().noneMatch(t -> t.getId().equals(list.get(0).getId())));
+                });
+    }
+
     @Test
     void findByCustomerId(){
         final var sample = this.createSample();
@@ -152,6 +255,45 @@ public class OrderControllerTest {
                 });
     }
 
+    @Test
+    void streamByStatus(){
+        final var ids = IntStream.range(0, 3)
+                .mapToObj(i -> {
+                    final var order = this.enhancedRandom.nextObject(Order.class, "id");
+                    order.setStatus(OrderStatusType.PAID);
+                    return this.orderRepository.insert(order).block().getId();
+                })
+                .collect(Collectors.toSet());
+
+        this.webTestClient.get()
+                .uri("/orders/status/" + OrderStatusType.PAID)
+                .accept(WebConfiguration.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(WebConfiguration.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> {
+                    final var lines = body.split("\n");
+                    assertEquals(ids.size(), lines.length);
+                    assertTrue(Stream.of(lines).allMatch(line -> line.startsWith("{") && line.endsWith("}")));
+                });
+
+        final var events = this.webTestClient.get()
+                .uri("/orders/status/" + OrderStatusType.PAID)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(OrderResponseDTO.class)
+                .getResponseBody();
+
+        StepVerifier.create(events.map(OrderResponseDTO::getId).collect(Collectors.toSet()))
+                .expectNext(ids)
+                .verifyComplete();
+    }
+
     @Test
     void findById(){
         final var sample = this.createSample();
@@ -249,6 +391,76 @@ public class OrderControllerTest {
                 });
     }
 
+    @Test
+    void updateConflict(){
+        final var sample = this.createSample();
+
+        final var request = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
+        request.setId(sample.getId());
+        request.setStatus(OrderStatusType.CREATED);
+
+        this.webTestClient.patch()
+                .uri("/orders")
+                .header(HttpHeaders.IF_MATCH, String.valueOf(sample.getVersion() + 1))
+                .body(Mono.just(request), OrderUpdateRequestDTO.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void updateWithEntityTag(){
+        final var sample = this.createSample();
+
+        final var request = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
+        request.setId(sample.getId());
+        request.setStatus(OrderStatusType.CREATED);
+
+        this.webTestClient.patch()
+                .uri("/orders")
+                .header(HttpHeaders.IF_MATCH, "\"" + sample.getVersion() + "\"")
+                .body(Mono.just(request), OrderUpdateRequestDTO.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(OrderResponseDTO.class)
+                .value(response -> assertEquals(sample.getVersion() + 1, response.getVersion().longValue()));
+
+        this.webTestClient.patch()
+                .uri("/orders")
+                .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                .body(Mono.just(request), OrderUpdateRequestDTO.class)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void createAllFromNdjson(){
+        final var body = String.join("\n",
+                "{\"customerId\":\"customer-1\",\"status\":\"CREATED\",\"meals\":[{\"description\":\"Pizza\",\"quantity\":\"1\"}]}",
+                "{\"status\":\"CREATED\",\"meals\":[{\"description\":\"Pasta\",\"quantity\":\"2\"}]}");
+
+        final var results = this.webTestClient.post()
+                .uri("/orders/bulk")
+                .contentType(WebConfiguration.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(BulkResultDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(results);
+        assertEquals(2, results.size());
+        assertNull(results.get(0).getError());
+        assertEquals("Customer Id is required", results.get(1).getError());
+        assertEquals(1L, this.orderRepository.findByCustomerId("customer-1").count().block());
+    }
+
     @Test
     void delete(){
         final var sample = this.createSample();
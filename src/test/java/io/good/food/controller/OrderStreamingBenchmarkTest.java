@@ -0,0 +1,108 @@
+package io.good.food.controller;
+
+import io.github.benas.randombeans.api.EnhancedRandom;
+import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.configuration.WebConfiguration;
+import io.good.food.dto.response.OrderResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderStreamingBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderStreamingBenchmarkTest.class);
+
+    private static final int ORDERS = 2000;
+
+    private final EnhancedRandom enhancedRandom = RandomBeanConfiguration.newEnhancedRandom();
+
+    private final List<OrderResponseDTO> orders = IntStream.range(0, ORDERS)
+            .mapToObj(i -> this.enhancedRandom.nextObject(OrderResponseDTO.class))
+            .collect(Collectors.toList());
+
+    @Test
+    void streamingHoldsOneOrderAtATime() {
+        final var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        final var array = this.encode(new Jackson2JsonEncoder(objectMapper), MediaType.APPLICATION_JSON);
+        final var ndjson = this.encode(WebConfiguration.ndjsonEncoder(objectMapper), WebConfiguration.APPLICATION_NDJSON);
+
+        LOGGER.info("Largest buffer held. Array: {} bytes, NDJSON: {} bytes", array.largestBuffer, ndjson.largestBuffer);
+        LOGGER.info("Orders read before the first byte went out. Array: {}, NDJSON: {}", array.readAhead, ndjson.readAhead);
+
+        // The array is only written once every order was read, the whole body sits in a single buffer
+        assertEquals(ORDERS, array.readAhead);
+        assertEquals(array.totalBytes, array.largestBuffer);
+        assertEquals(ORDERS, array.largestRequest);
+
+        // Lines are written as orders arrive and the source is only read as fast as the client asks
+        assertEquals(1, ndjson.readAhead);
+        assertTrue(ndjson.largestBuffer * 100 < array.largestBuffer);
+        assertEquals(1, ndjson.largestRequest);
+    }
+
+    private Result encode(final Jackson2JsonEncoder encoder, final MimeType mimeType) {
+        final var result = new Result();
+        final var read = new AtomicLong();
+
+        final var source = Flux.fromIterable(this.orders)
+                .doOnRequest(n -> result.largestRequest = Math.max(result.largestRequest, Math.min(n, ORDERS)))
+                .doOnNext(t -> read.incrementAndGet());
+
+        // A slow client: one buffer is requested, written out and released before asking for the next one
+        encoder.encode(source, new DefaultDataBufferFactory(), ResolvableType.forClass(OrderResponseDTO.class), mimeType, Map.of())
+                .subscribe(new BaseSubscriber<DataBuffer>() {
+
+                    @Override
+                    protected void hookOnSubscribe(final Subscription subscription) {
+                        this.request(1);
+                    }
+
+                    @Override
+                    protected void hookOnNext(final DataBuffer buffer) {
+                        if(result.totalBytes == 0) {
+                            result.readAhead = read.get();
+                        }
+
+                        result.largestBuffer = Math.max(result.largestBuffer, buffer.readableByteCount());
+                        result.totalBytes += buffer.readableByteCount();
+                        DataBufferUtils.release(buffer);
+
+                        this.request(1);
+                    }
+                });
+
+        return result;
+    }
+
+    private static class Result {
+
+        private long readAhead;
+
+        private long largestBuffer;
+
+        private long totalBytes;
+
+        private long largestRequest;
+    }
+}
@@ -0,0 +1,219 @@
+package io.good.food.repository;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.github.benas.randombeans.api.EnhancedRandom;
+import io.good.food.Application;
+import io.good.food.configuration.MongoVersionConfiguration;
+import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.dto.type.ActionType;
+import io.good.food.dto.type.OrderStatusType;
+import io.good.food.entity.Order;
+import io.good.food.service.PageService;
+import io.vavr.Tuple;
+import io.vavr.control.Option;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes={Application.class, RandomBeanConfiguration.class, OrderRepositoryTest.FindCapture.class})
+@ExtendWith(SpringExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class OrderRepositoryTest {
+
+    private final OrderRepository orderRepository;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final EnhancedRandom enhancedRandom;
+
+    private final MongoVersionConfiguration mongoVersionConfiguration;
+
+    @Autowired
+    public OrderRepositoryTest(final OrderRepository orderRepository,
+                               final ReactiveMongoTemplate reactiveMongoTemplate,
+                               final EnhancedRandom enhancedRandom,
+                               final MongoVersionConfiguration mongoVersionConfiguration) {
+        this.orderRepository = orderRepository;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.enhancedRandom = enhancedRandom;
+        this.mongoVersionConfiguration = mongoVersionConfiguration;
+    }
+
+    @BeforeAll
+    public void init() {
+        this.orderRepository.deleteAll().block();
+        IntStream.range(0, 20).forEach(i -> this.orderRepository.insert(this.enhancedRandom.nextObject(Order.class, "id")).block());
+    }
+
+    @Test
+    void backfillVersions() {
+        final var id = new ObjectId();
+        this.reactiveMongoTemplate.insert(new Document("_id", id).append("status", OrderStatusType.CREATED.name()), "order").block();
+
+        this.mongoVersionConfiguration.backfillVersions();
+
+        final var order = this.orderRepository.findById(id.toHexString()).block();
+        assertNotNull(order);
+        assertEquals(0L, order.getVersion().longValue());
+
+        // With a version the document is updated in place instead of being inserted again as a new one
+        order.setStatus(OrderStatusType.DELIVERED);
+        final var saved = this.orderRepository.save(order).block();
+        assertNotNull(saved);
+        assertEquals(1L, saved.getVersion().longValue());
+
+        this.orderRepository.deleteById(id.toHexString()).block();
+    }
+
+    @Test
+    void indexes() {
+        final var names = this.reactiveMongoTemplate.indexOps(Order.class).getIndexInfo()
+                .map(IndexInfo::getName)
+                .collectList()
+                .block();
+
+        assertNotNull(names);
+        assertTrue(names.containsAll(List.of("creation_date_index", "customer_creation_date_index", "status_creation_date_index", "expire_after_seconds_index")));
+    }
+
+    @Test
+    void findByCustomerIdUsesIndex() {
+        this.assertIndexed(this.orderRepository.findByCustomerId("customer", this.pageable()));
+        this.assertIndexed(this.orderRepository.findByCustomerIdAfter("customer", LocalDateTime.now(), new ObjectId(), this.pageable()));
+    }
+
+    @Test
+    void findByStatusUsesIndex() {
+        this.assertIndexed(this.orderRepository.findByStatus(OrderStatusType.PAID, this.pageable()));
+        this.assertIndexed(this.orderRepository.findByStatusAfter(OrderStatusType.PAID, LocalDateTime.now(), new ObjectId(), this.pageable()));
+    }
+
+    @Test
+    void findAllUsesIndex() {
+        this.assertIndexed(this.orderRepository.findAllBy(this.pageable()));
+        this.assertIndexed(this.orderRepository.findAllAfter(LocalDateTime.now(), new ObjectId(), this.pageable()));
+    }
+
+    private Pageable pageable() {
+        return new PageService(10, 500).pageable(10);
+    }
+
+    private void assertIndexed(final Flux<Order> query) {
+        // The find the repository actually sent is explained, with the filter and sort as mapped by Spring Data
+        final var command = FindCapture.capture(() -> query.blockLast());
+
+        final var explain = new Document("explain", new Document("find", command.getString("find").getValue())
+                .append("filter", command.getDocument("filter", new BsonDocument()))
+                .append("sort", command.getDocument("sort", new BsonDocument())))
+                .append("verbosity", "queryPlanner");
+
+        final var result = this.reactiveMongoTemplate.executeCommand(explain).block();
+        assertNotNull(result);
+
+        final var winningPlan = result.get("queryPlanner", Document.class).get("winningPlan");
+        assertFalse(this.hasStage(winningPlan, "COLLSCAN"), "Query " + command.toJson() + " scans the whole collection: " + winningPlan);
+    }
+
+    @Test
+    void bulkWriteReportsConflicts() {
+        final var stale = this.orderRepository.insert(this.enhancedRandom.nextObject(Order.class, "id")).block();
+        final var current = this.orderRepository.insert(this.enhancedRandom.nextObject(Order.class, "id")).block();
+        assertNotNull(stale);
+        assertNotNull(current);
+
+        final var read = stale.getVersion();
+        this.orderRepository.bulkWrite(List.of(Tuple.of(ActionType.UPDATE, this.withStatus(stale, OrderStatusType.PAID), read))).block();
+
+        // The second write still expects the version read before the first one
+        final var errors = this.orderRepository.bulkWrite(List.of(
+                Tuple.of(ActionType.UPDATE, this.withStatus(stale, OrderStatusType.DELIVERED), read),
+                Tuple.of(ActionType.UPDATE, this.withStatus(current, OrderStatusType.PAID), current.getVersion()))).block();
+
+        assertNotNull(errors);
+        assertEquals(Map.of(0, OrderRepositoryCustom.CONFLICT), errors);
+        assertEquals(OrderStatusType.PAID, this.orderRepository.findById(stale.getId()).map(Order::getStatus).block());
+        assertEquals(OrderStatusType.PAID, this.orderRepository.findById(current.getId()).map(Order::getStatus).block());
+    }
+
+    private Order withStatus(final Order order, final OrderStatusType status) {
+        order.setStatus(status);
+        order.setVersion(Option.of(order.getVersion()).getOrElse(0L) + 1);
+        return order;
+    }
+
+    private boolean hasStage(final Object plan, final String stage) {
+        if(plan instanceof Document) {
+            final var document = (Document) plan;
+            return Objects.equals(stage, document.get("stage")) || document.values().stream().anyMatch(value -> this.hasStage(value, stage));
+        }
+
+        if(plan instanceof Collection) {
+            return ((Collection<?>) plan).stream().anyMatch(value -> this.hasStage(value, stage));
+        }
+
+        return false;
+    }
+
+    @TestConfiguration
+    static class FindCapture {
+
+        private static final List<BsonDocument> FINDS = new CopyOnWriteArrayList<>();
+
+        @Bean
+        public MongoClientSettingsBuilderCustomizer findCapture() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+
+                @Override
+                public void commandStarted(final CommandStartedEvent event) {
+                    // Background reloads of other collections run meanwhile, only finds on orders are kept
+                    if("find".equals(event.getCommandName()) && "order".equals(event.getCommand().getString("find").getValue())) {
+                        FINDS.add(event.getCommand().clone());
+                    }
+                }
+
+                @Override
+                public void commandSucceeded(final CommandSucceededEvent event) {
+                }
+
+                @Override
+                public void commandFailed(final CommandFailedEvent event) {
+                }
+            });
+        }
+
+        static synchronized BsonDocument capture(final Runnable query) {
+            FINDS.clear();
+            query.run();
+
+            assertEquals(1, FINDS.size());
+            return FINDS.get(0);
+        }
+    }
+}
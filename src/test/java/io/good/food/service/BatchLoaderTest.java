@@ -0,0 +1,86 @@
+package io.good.food.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BatchLoaderTest {
+
+    @Test
+    void load() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var batches = new ArrayList<Collection<String>>();
+        final var loader = new BatchLoader<String>(meterRegistry, "test", ids -> {
+            batches.add(ids);
+            return Flux.fromIterable(ids).filter(id -> !id.equals("missing"));
+        }, Function.identity(), 100, Duration.ofMillis(50), Duration.ofSeconds(5));
+
+        final var ids = List.of("order-1", "order-2", "order-3", "order-1", "missing");
+        final var values = Flux.fromIterable(ids)
+                .flatMapSequential(id -> loader.load(id).defaultIfEmpty("empty"))
+                .collectList()
+                .block();
+
+        assertEquals(List.of("order-1", "order-2", "order-3", "order-1", "empty"), values);
+        assertEquals(1, batches.size());
+        assertEquals(4, batches.get(0).size());
+        assertEquals(5.0, meterRegistry.counter("batch-loader.requests", "name", "test").count());
+        assertEquals(1.0, meterRegistry.counter("batch-loader.queries", "name", "test").count());
+    }
+
+    @Test
+    void loadFlushesFullBatches() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var loader = new BatchLoader<String>(meterRegistry, "test", Flux::fromIterable, Function.identity(), 2, Duration.ofSeconds(30), Duration.ofSeconds(5));
+
+        final var values = Flux.range(0, 4)
+                .flatMap(i -> loader.load("order-" + i))
+                .collect(Collectors.toSet())
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(4, values.size());
+        assertEquals(2.0, meterRegistry.counter("batch-loader.queries", "name", "test").count());
+    }
+
+    @Test
+    void loadSurvivesFailingLoader() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var loader = new BatchLoader<String>(meterRegistry, "test", ids -> {
+            if(ids.contains("broken")) {
+                throw new IllegalStateException("Loader failed");
+            }
+
+            return Flux.fromIterable(ids);
+        }, Function.identity(), 100, Duration.ofMillis(10), Duration.ofSeconds(5));
+
+        StepVerifier.create(loader.load("broken"))
+                .expectErrorMessage("Loader failed")
+                .verify(Duration.ofSeconds(5));
+
+        StepVerifier.create(loader.load("order-1"))
+                .expectNext("order-1")
+                .verifyComplete();
+    }
+
+    @Test
+    void loadTimesOut() {
+        final var loader = new BatchLoader<String>(new SimpleMeterRegistry(), "test", ids -> Flux.never(), Function.identity(), 100, Duration.ofMillis(10), Duration.ofMillis(100));
+
+        StepVerifier.create(loader.load("order-1"))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+
+        loader.dispose();
+    }
+}
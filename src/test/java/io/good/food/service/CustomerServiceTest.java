@@ -5,9 +5,13 @@ import io.good.food.Application;
 import io.good.food.configuration.RandomBeanConfiguration;
 import io.good.food.dto.request.CustomerInsertRequestDTO;
 import io.good.food.dto.request.CustomerUpdateRequestDTO;
+import io.good.food.dto.response.CustomerResponseDTO;
 import io.good.food.entity.Customer;
+import io.good.food.entity.Order;
 import io.good.food.exception.BusinessException;
 import io.good.food.repository.CustomerRepository;
+import io.good.food.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,9 +20,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 import reactor.test.StepVerifierOptions;
 
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -33,20 +41,33 @@ public class CustomerServiceTest {
 
     private final CustomerRepository customerRepository;
 
+    private final OrderRepository orderRepository;
+
     private final EnhancedRandom enhancedRandom;
 
+    private final MeterRegistry meterRegistry;
+
+    private final CustomerSuidFilter customerSuidFilter;
+
     @Autowired
     public CustomerServiceTest(final CustomerService customerService,
                                final CustomerRepository customerRepository,
-                               final EnhancedRandom enhancedRandom) {
+                               final OrderRepository orderRepository,
+                               final EnhancedRandom enhancedRandom,
+                               final MeterRegistry meterRegistry,
+                               final CustomerSuidFilter customerSuidFilter) {
         this.customerService = customerService;
         this.customerRepository = customerRepository;
+        this.orderRepository = orderRepository;
         this.enhancedRandom = enhancedRandom;
+        this.meterRegistry = meterRegistry;
+        this.customerSuidFilter = customerSuidFilter;
     }
 
     @BeforeEach
     protected void init() {
         this.customerRepository.deleteAll().block();
+        this.orderRepository.deleteAll().block();
     }
 
     @Test
@@ -129,6 +150,61 @@ public class CustomerServiceTest {
                 .verify();
     }
 
+    @Test
+    void findBySuidCached() {
+        final var sample = this.createSample();
+        final var hits = this.meterRegistry.counter("customer.cache.hits").count();
+        final var misses = this.meterRegistry.counter("customer.cache.misses").count();
+
+        assertEquals(sample.getId(), this.customerService.findBySuid(sample.getSuid()).map(CustomerResponseDTO::getId).block());
+        this.customerRepository.deleteById(sample.getId()).block();
+        assertEquals(sample.getSuid(), this.customerService.findById(sample.getId()).map(CustomerResponseDTO::getSuid).block());
+
+        // A false positive of the suid filter is what reaches the negative cache
+        final var unknown = "UNKNOWN-" + sample.getSuid();
+        this.customerSuidFilter.put(unknown);
+        assertThrows(BusinessException.class, () -> this.customerService.findBySuid(unknown).block());
+        assertThrows(BusinessException.class, () -> this.customerService.findBySuid(unknown).block());
+
+        assertEquals(hits + 2, this.meterRegistry.counter("customer.cache.hits").count());
+        assertEquals(misses + 2, this.meterRegistry.counter("customer.cache.misses").count());
+
+        final var request = this.enhancedRandom.nextObject(CustomerInsertRequestDTO.class);
+        request.setSuid(unknown);
+        this.customerService.create(request).block();
+
+        assertEquals(request.getName(), this.customerService.findBySuid(unknown).map(CustomerResponseDTO::getName).block());
+    }
+
+    @Test
+    void findBySuidRejectedByFilter() {
+        final var rejections = this.meterRegistry.counter("customer.suid-filter.rejections").count();
+        final var misses = this.meterRegistry.counter("customer.cache.misses").count();
+
+        final var exception = assertThrows(BusinessException.class, () -> this.customerService.findBySuid("PROBE_NOT_FOUND").block());
+        assertEquals("Customer not found", exception.getMessage());
+
+        assertEquals(rejections + 1, this.meterRegistry.counter("customer.suid-filter.rejections").count());
+        assertEquals(misses, this.meterRegistry.counter("customer.cache.misses").count());
+
+        final var sample = this.createSample();
+        this.customerSuidFilter.rebuild().block();
+        assertEquals(sample.getId(), this.customerService.findBySuid(sample.getSuid()).map(CustomerResponseDTO::getId).block());
+    }
+
+    @Test
+    void findBySuidCreatedByAnotherInstance() {
+        // Written straight to Mongo, the way a customer created by another instance looks to this one
+        final var customer = this.enhancedRandom.nextObject(Customer.class);
+        customer.setId(null);
+        customer.setModificationDate(LocalDateTime.now());
+        final var sample = this.customerRepository.insert(customer).block();
+        assertNotNull(sample);
+
+        this.customerSuidFilter.sync().block();
+        assertEquals(sample.getId(), this.customerService.findBySuid(sample.getSuid()).map(CustomerResponseDTO::getId).block());
+    }
+
     @Test
     void create() {
         final var request = this.enhancedRandom.nextObject(CustomerInsertRequestDTO.class);
@@ -248,6 +324,23 @@ public class CustomerServiceTest {
                 .verify();
     }
 
+    @Test
+    void deleteBySuidCascade() {
+        final var sample = this.createSample();
+        final var orders = this.enhancedRandom.objects(Order.class, 3, "id").collect(Collectors.toList());
+        orders.forEach(t -> t.setCustomerId(sample.getId()));
+        this.orderRepository.insert(orders).blockLast();
+
+        final var progress = this.customerService.deleteBySuidCascade(sample.getSuid()).collectList().block();
+
+        assertNotNull(progress);
+        final var last = progress.get(progress.size() - 1);
+        assertTrue(last.getCompleted());
+        assertEquals(3L, last.getDeletedOrders().longValue());
+        assertEquals(0L, this.orderRepository.findByCustomerId(sample.getId()).count().block().longValue());
+        assertEquals(Boolean.FALSE, this.customerRepository.existsById(sample.getId()).block());
+    }
+
     @Test
     void deleteBySuidEmptyRequest() {
         final var exception = assertThrows(BusinessException.class, () -> this.customerService.deleteBySuid("").block());
@@ -260,10 +353,50 @@ public class CustomerServiceTest {
         assertEquals("Customer not found", exception.getMessage());
     }
 
+    @Test
+    void createAll() {
+        final var valid = this.enhancedRandom.nextObject(CustomerInsertRequestDTO.class);
+        final var invalid = this.enhancedRandom.nextObject(CustomerInsertRequestDTO.class, "suid");
+
+        final var results = this.customerService.createAll(Flux.just(valid, invalid)).collectList().block();
+        assertNotNull(results);
+        assertEquals(2, results.size());
+
+        final var created = results.get(0);
+        assertEquals(0L, created.getIndex().longValue());
+        assertNotNull(created.getId());
+        assertEquals(valid.getSuid(), this.customerService.findBySuid(valid.getSuid()).map(CustomerResponseDTO::getSuid).block());
+
+        final var rejected = results.get(1);
+        assertEquals(1L, rejected.getIndex().longValue());
+        assertEquals("Suid is required", rejected.getError());
+    }
+
+    @Test
+    void updateAll() {
+        final var sample = this.createSample();
+
+        final var request = this.enhancedRandom.nextObject(CustomerUpdateRequestDTO.class);
+        request.setId(sample.getId());
+
+        final var missing = this.enhancedRandom.nextObject(CustomerUpdateRequestDTO.class);
+        missing.setId("NOT_FOUND");
+
+        StepVerifier.create(this.customerService.updateAll(Flux.just(request, missing)))
+                .expectNextMatches(value -> sample.getId().equals(value.getId()) && value.getError() == null)
+                .expectNextMatches(value -> "NOT_FOUND".equals(value.getId()) && "Customer not found".equals(value.getError()))
+                .verifyComplete();
+
+        assertEquals(request.getName(), this.customerRepository.findById(sample.getId()).map(Customer::getName).block());
+    }
+
     private Customer createSample() {
         final var customer = this.enhancedRandom.nextObject(Customer.class);
         customer.setId(null);
 
-        return this.customerRepository.insert(customer).block();
+        final var inserted = this.customerRepository.insert(customer).block();
+        this.customerSuidFilter.put(customer.getSuid());
+
+        return inserted;
     }
 }
@@ -5,11 +5,13 @@ import io.good.food.Application;
 import io.good.food.configuration.RandomBeanConfiguration;
 import io.good.food.dto.request.MealInsertRequestDTO;
 import io.good.food.dto.request.MealUpdateRequestDTO;
+import io.good.food.dto.response.MealResponseDTO;
 import io.good.food.dto.type.MealType;
 import io.good.food.dto.type.OrderStatusType;
 import io.good.food.entity.Meal;
 import io.good.food.exception.BusinessException;
 import io.good.food.repository.MealRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.Assert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,12 +20,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 import reactor.test.StepVerifierOptions;
 
 import java.util.ArrayList;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -36,20 +40,29 @@ public class MealServiceTest {
 
     private final MealRepository mealRepository;
 
+    private final MealCatalog mealCatalog;
+
     private final EnhancedRandom enhancedRandom;
 
+    private final MeterRegistry meterRegistry;
+
     @Autowired
     public MealServiceTest(final MealService mealService,
                            final MealRepository mealRepository,
-                           final EnhancedRandom enhancedRandom) {
+                           final MealCatalog mealCatalog,
+                           final EnhancedRandom enhancedRandom,
+                           final MeterRegistry meterRegistry) {
         this.mealService = mealService;
         this.mealRepository = mealRepository;
+        this.mealCatalog = mealCatalog;
         this.enhancedRandom = enhancedRandom;
+        this.meterRegistry = meterRegistry;
     }
 
     @BeforeEach
     protected void init() {
         this.mealRepository.deleteAll().block();
+        this.mealCatalog.refresh().block();
     }
 
     @Test
@@ -238,6 +251,73 @@ public class MealServiceTest {
                 .verify();
     }
 
+    @Test
+    void catalogFollowsWrites() {
+        final var request = this.enhancedRandom.nextObject(MealInsertRequestDTO.class);
+        request.setType(MealType.DESSERT);
+
+        final var created = this.mealService.create(request).block();
+        assertNotNull(created);
+        this.mealRepository.deleteById(created.getId()).block();
+
+        final var hits = this.meterRegistry.counter("meal.catalog.hits").count();
+        assertEquals(request.getDescription(), this.mealService.findById(created.getId()).map(MealResponseDTO::getDescription).block());
+        assertEquals(1, this.mealService.findAll().count().block().intValue());
+        assertEquals(hits + 2, this.meterRegistry.counter("meal.catalog.hits").count());
+        assertEquals(1.0, this.meterRegistry.get("meal.catalog.size").gauge().value());
+
+        this.mealCatalog.refresh().block();
+        final var exception = assertThrows(BusinessException.class, () -> this.mealService.findById(created.getId()).block());
+        assertEquals("Meal not found", exception.getMessage());
+    }
+
+    @Test
+    void createAll() {
+        final var valid = this.enhancedRandom.nextObject(MealInsertRequestDTO.class);
+        valid.setType(MealType.DESSERT);
+
+        final var invalid = this.enhancedRandom.nextObject(MealInsertRequestDTO.class, "description");
+        invalid.setType(MealType.DESSERT);
+
+        final var results = this.mealService.createAll(Flux.just(valid, invalid)).collectList().block();
+        assertNotNull(results);
+        assertEquals(2, results.size());
+
+        final var created = results.get(0);
+        assertEquals(0L, created.getIndex().longValue());
+        assertNotNull(created.getId());
+        assertNull(created.getError());
+        assertEquals(valid.getDescription(), this.mealService.findById(created.getId()).map(MealResponseDTO::getDescription).block());
+        assertEquals(valid.getDescription(), this.mealRepository.findById(created.getId()).map(Meal::getDescription).block());
+
+        final var rejected = results.get(1);
+        assertEquals(1L, rejected.getIndex().longValue());
+        assertNull(rejected.getId());
+        assertEquals("Description is required", rejected.getError());
+    }
+
+    @Test
+    void updateAll() {
+        final var sample = this.createSample();
+
+        final var request = this.enhancedRandom.nextObject(MealUpdateRequestDTO.class);
+        request.setId(sample.getId());
+        request.setType(MealType.ITALIAN);
+
+        final var missing = this.enhancedRandom.nextObject(MealUpdateRequestDTO.class);
+        missing.setId("NOT_FOUND");
+        missing.setType(MealType.ITALIAN);
+
+        final var flux = this.mealService.updateAll(Flux.just(request, missing));
+
+        StepVerifier.create(flux)
+                .expectNextMatches(value -> sample.getId().equals(value.getId()) && value.getError() == null)
+                .expectNextMatches(value -> "NOT_FOUND".equals(value.getId()) && "Meal not found".equals(value.getError()))
+                .verifyComplete();
+
+        assertEquals(request.getDescription(), this.mealRepository.findById(sample.getId()).map(Meal::getDescription).block());
+    }
+
     @Test
     void deleteEmptyRequest() {
         final var exception = assertThrows(BusinessException.class, () -> this.mealService.delete("").block());
@@ -255,6 +335,9 @@ public class MealServiceTest {
         meal.setId(null);
         meal.setType(MealType.DESSERT);
 
-        return this.mealRepository.insert(meal).block();
+        final var inserted = this.mealRepository.insert(meal).block();
+        this.mealCatalog.refresh().block();
+
+        return inserted;
     }
 }
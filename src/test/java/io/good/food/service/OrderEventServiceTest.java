@@ -0,0 +1,116 @@
+package io.good.food.service;
+
+import io.github.benas.randombeans.api.EnhancedRandom;
+import io.good.food.Application;
+import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.configuration.ReplicaSetConfiguration;
+import io.good.food.dto.request.OrderInsertRequestDTO;
+import io.good.food.dto.response.OrderResponseDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.dto.type.OrderStatusType;
+import io.good.food.entity.Order;
+import io.good.food.repository.OrderOutboxRepository;
+import io.good.food.repository.OrderRepository;
+import io.good.food.streaming.OrderOutboxRelay;
+import io.good.food.streaming.channel.OrderChannels;
+import ma.glasnost.orika.MapperFacade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes={Application.class, RandomBeanConfiguration.class, ReplicaSetConfiguration.class},
+        properties = {"outbox.enabled=true", "outbox.relay.period=3600000", ReplicaSetConfiguration.REPLICA_SET, ReplicaSetConfiguration.VERSION})
+@ExtendWith(SpringExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class OrderEventServiceTest {
+
+    private final OrderService orderService;
+
+    private final OrderEventService orderEventService;
+
+    private final OrderOutboxRelay orderOutboxRelay;
+
+    private final OrderRepository orderRepository;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    private final OrderChannels orderChannels;
+
+    private final MessageCollector messageCollector;
+
+    private final MapperFacade mapperFacade;
+
+    private final EnhancedRandom enhancedRandom;
+
+    @Autowired
+    public OrderEventServiceTest(final OrderService orderService,
+                                 final OrderEventService orderEventService,
+                                 final OrderOutboxRelay orderOutboxRelay,
+                                 final OrderRepository orderRepository,
+                                 final OrderOutboxRepository orderOutboxRepository,
+                                 final OrderChannels orderChannels,
+                                 final MessageCollector messageCollector,
+                                 final MapperFacade mapperFacade,
+                                 final EnhancedRandom enhancedRandom) {
+        this.orderService = orderService;
+        this.orderEventService = orderEventService;
+        this.orderOutboxRelay = orderOutboxRelay;
+        this.orderRepository = orderRepository;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderChannels = orderChannels;
+        this.messageCollector = messageCollector;
+        this.mapperFacade = mapperFacade;
+        this.enhancedRandom = enhancedRandom;
+    }
+
+    @BeforeEach
+    protected void init() {
+        this.orderRepository.deleteAll().block();
+        this.orderOutboxRepository.deleteAll().block();
+        this.messageCollector.forChannel(this.orderChannels.orderProducer()).clear();
+    }
+
+    @Test
+    void createWritesOutbox() {
+        final var request = this.enhancedRandom.nextObject(OrderInsertRequestDTO.class);
+        request.setStatus(OrderStatusType.CREATED);
+
+        final var created = this.orderService.create(request).block();
+        assertNotNull(created);
+
+        // The event is only in the outbox, next to the order, until the relay sends it
+        final var outbox = this.orderOutboxRepository.findAll().collectList().block();
+        assertNotNull(outbox);
+        assertEquals(1, outbox.size());
+        assertEquals(created.getId(), outbox.get(0).getOrderId());
+        assertEquals(ActionType.CREATE, outbox.get(0).getEvent().getAction());
+        assertNull(this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll());
+
+        assertEquals(1L, this.orderOutboxRelay.relay().block());
+        assertNotNull(this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll());
+    }
+
+    @Test
+    void failureRollsBackOrderAndOutbox() {
+        final var order = this.enhancedRandom.nextObject(Order.class, "id");
+
+        final var mono = this.orderRepository.insert(order)
+                .map(t -> this.mapperFacade.map(t, OrderResponseDTO.class))
+                .flatMap(t -> this.orderEventService.publish(t, ActionType.CREATE))
+                .then(Mono.error(new IllegalStateException("Failure after the event")))
+                .as(this.orderEventService::transactional);
+
+        assertThrows(IllegalStateException.class, mono::block);
+
+        assertEquals(0L, this.orderRepository.count().block());
+        assertEquals(0L, this.orderOutboxRepository.count().block());
+    }
+}
@@ -4,16 +4,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.benas.randombeans.api.EnhancedRandom;
 import io.good.food.Application;
 import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.dto.domain.MealDTO;
 import io.good.food.dto.request.OrderInsertRequestDTO;
 import io.good.food.dto.request.OrderUpdateRequestDTO;
+import io.good.food.dto.response.OrderResponseDTO;
+import io.good.food.dto.stream.OrderInputDTO;
 import io.good.food.dto.stream.OrderOutputDTO;
 import io.good.food.dto.type.ActionType;
 import io.good.food.dto.type.OrderStatusType;
 import io.good.food.entity.Order;
 import io.good.food.exception.BusinessException;
+import io.good.food.exception.ConflictException;
 import io.good.food.repository.OrderRepository;
 import io.good.food.streaming.channel.OrderChannels;
 import io.vavr.control.Try;
+import org.bson.types.ObjectId;
 import org.junit.Assert;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,11 +28,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 import reactor.test.StepVerifierOptions;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertNotNull;
@@ -141,6 +152,39 @@ public class OrderServiceTest {
                 .verify();
     }
 
+    @Test
+    void findByCustomerIdPaged() {
+        final var customerId = new ObjectId().toHexString();
+        final var expected = IntStream.range(0, 5)
+                .mapToObj(i -> {
+                    final var order = this.enhancedRandom.nextObject(Order.class, "id");
+                    order.setCustomerId(customerId);
+                    return this.orderRepository.insert(order).block();
+                })
+                .sorted(Comparator.comparing(Order::getCreationDate))
+                .map(Order::getId)
+                .collect(Collectors.toList());
+        this.createSample();
+
+        final var ids = new ArrayList<String>();
+        var page = this.orderService.findByCustomerId(customerId, null, 2).block();
+        ids.addAll(page.getContent().stream().map(OrderResponseDTO::getId).collect(Collectors.toList()));
+
+        while(page.getNext() != null) {
+            assertEquals(2, page.getContent().size());
+            page = this.orderService.findByCustomerId(customerId, page.getNext(), 2).block();
+            ids.addAll(page.getContent().stream().map(OrderResponseDTO::getId).collect(Collectors.toList()));
+        }
+
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void findAllInvalidToken() {
+        final var exception = assertThrows(BusinessException.class, () -> this.orderService.findAll("not a token", 10).block());
+        assertEquals("Invalid page token", exception.getMessage());
+    }
+
     @Test
     void findByCustomerIdEmptyRequest() {
         final var exception = assertThrows(BusinessException.class, () -> this.orderService.findByCustomerId(null).collectList().block());
@@ -434,6 +478,34 @@ public class OrderServiceTest {
         assertEquals("Invalid order status", exception.getMessage());
     }
 
+    @Test
+    void updateWithVersion() {
+        final var sample = this.createSample();
+
+        final var request = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
+        request.setId(sample.getId());
+        request.setStatus(OrderStatusType.PAID);
+
+        final var updated = this.orderService.update(request, sample.getVersion()).block();
+        assertNotNull(updated);
+        assertEquals(sample.getVersion() + 1, updated.getVersion().longValue());
+        assertEquals(OrderStatusType.PAID, updated.getStatus());
+
+        request.setStatus(OrderStatusType.DELIVERED);
+        final var exception = assertThrows(ConflictException.class, () -> this.orderService.update(request, sample.getVersion()).block());
+        assertEquals("Order was modified by another request", exception.getMessage());
+        assertEquals(OrderStatusType.PAID, this.orderRepository.findById(sample.getId()).map(Order::getStatus).block());
+    }
+
+    @Test
+    void updateWithVersionNotFound() {
+        final var request = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
+        request.setId("NOT_FOUND");
+
+        final var exception = assertThrows(BusinessException.class, () -> this.orderService.update(request, 0L).block());
+        assertEquals("Order not found", exception.getMessage());
+    }
+
     @Test
     void updateNotFound() {
         final var request = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
@@ -443,6 +515,163 @@ public class OrderServiceTest {
         assertEquals("Order not found", exception.getMessage());
     }
 
+    @Test
+    void addMeals() {
+        final var sample = this.createSample();
+        final var meals = this.enhancedRandom.objects(MealDTO.class, 2, "id", "creationDate").collect(Collectors.toList());
+
+        final var updated = this.orderService.addMeals(sample.getId(), meals).block();
+        assertNotNull(updated);
+        assertEquals(sample.getMeals().size() + meals.size(), updated.getMeals().size());
+        assertEquals(sample.getVersion() + 1, updated.getVersion().longValue());
+
+        final var payload = this.pollOutput();
+        assertEquals(ActionType.ADD_MEALS, payload.getAction());
+        assertEquals(meals.size(), payload.getMeals().size());
+        IntStream.range(0, meals.size()).forEach(i -> {
+            assertNotNull(payload.getMeals().get(i).getId());
+            assertEquals(meals.get(i).getDescription(), payload.getMeals().get(i).getDescription());
+        });
+    }
+
+    @Test
+    void addMealsRetried() {
+        final var sample = this.createSample();
+        final var meals = this.enhancedRandom.objects(MealDTO.class, 2, "id", "creationDate").collect(Collectors.toList());
+        final var retriedMeals = meals.stream().map(this::copyWithoutId).collect(Collectors.toList());
+
+        final var first = this.orderService.addMeals(sample.getId(), meals, "order-in-v1-0-43").block();
+        final var retried = this.orderService.addMeals(sample.getId(), retriedMeals, "order-in-v1-0-43").block();
+
+        assertNotNull(first);
+        assertNotNull(retried);
+        assertEquals(first.getVersion(), retried.getVersion());
+        assertEquals(sample.getMeals().size() + meals.size(), this.orderRepository.findById(sample.getId()).map(t -> t.getMeals().size()).block());
+
+        final var payload = this.pollOutput();
+        final var replayed = this.pollOutput();
+        assertEquals(ActionType.ADD_MEALS, replayed.getAction());
+        assertEquals(payload.getMeals().stream().map(MealDTO::getId).collect(Collectors.toList()),
+                replayed.getMeals().stream().map(MealDTO::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void removeMeals() {
+        final var sample = this.createSample();
+        final var removed = sample.getMeals().get(0).getId();
+
+        final var updated = this.orderService.removeMeals(sample.getId(), List.of(removed)).block();
+        assertNotNull(updated);
+        assertEquals(sample.getMeals().size() - 1, updated.getMeals().size());
+        Assertions.assertTrue(updated.getMeals().stream().noneMatch(t -> removed.equals(t.getId())));
+
+        final var payload = this.pollOutput();
+        assertEquals(ActionType.REMOVE_MEALS, payload.getAction());
+        assertEquals(1, payload.getMeals().size());
+        assertEquals(removed, payload.getMeals().get(0).getId());
+    }
+
+    @Test
+    void removeMealsNotFound() {
+        final var sample = this.createSample();
+
+        final var exception = assertThrows(BusinessException.class, () -> this.orderService.removeMeals(sample.getId(), List.of("NOT_FOUND")).block());
+        assertEquals("Meal not found", exception.getMessage());
+        assertEquals(sample.getMeals().size(), this.orderRepository.findById(sample.getId()).map(t -> t.getMeals().size()).block());
+    }
+
+    @Test
+    void removeMealsPartlyFound() {
+        final var sample = this.createSample();
+        final var removed = sample.getMeals().get(0).getId();
+
+        final var updated = this.orderService.removeMeals(sample.getId(), List.of(removed, new ObjectId().toHexString())).block();
+        assertNotNull(updated);
+        assertEquals(sample.getMeals().size() - 1, updated.getMeals().size());
+        assertEquals(sample.getVersion() + 1, updated.getVersion().longValue());
+
+        final var payload = this.pollOutput();
+        assertEquals(1, payload.getMeals().size());
+        assertEquals(removed, payload.getMeals().get(0).getId());
+    }
+
+    @Test
+    void changeMealQuantity() {
+        final var sample = this.createSample();
+
+        final var meal = new MealDTO();
+        meal.setId(sample.getMeals().get(0).getId());
+        meal.setQuantity("42");
+
+        final var updated = this.orderService.changeMealQuantity(sample.getId(), List.of(meal)).block();
+        assertNotNull(updated);
+        assertEquals("42", updated.getMeals().get(0).getQuantity());
+        assertEquals(sample.getMeals().get(0).getDescription(), updated.getMeals().get(0).getDescription());
+
+        final var payload = this.pollOutput();
+        assertEquals(ActionType.CHANGE_MEAL_QUANTITY, payload.getAction());
+        assertEquals(1, payload.getMeals().size());
+        assertEquals("42", payload.getMeals().get(0).getQuantity());
+    }
+
+    @Test
+    void changeMealQuantityOfSeveralMeals() {
+        final var order = this.enhancedRandom.nextObject(Order.class);
+        order.setId(null);
+        order.setMeals(this.enhancedRandom.objects(MealDTO.class, 2).collect(Collectors.toList()));
+        order.getMeals().forEach(meal -> meal.setId(new ObjectId().toHexString()));
+
+        final var sample = this.orderRepository.insert(order).block();
+        assertNotNull(sample);
+
+        final var meals = IntStream.range(0, 2)
+                .mapToObj(i -> {
+                    final var meal = new MealDTO();
+                    meal.setId(sample.getMeals().get(i).getId());
+                    meal.setQuantity(String.valueOf(40 + i));
+                    return meal;
+                })
+                .collect(Collectors.toList());
+
+        final var updated = this.orderService.changeMealQuantity(sample.getId(), meals).block();
+        assertNotNull(updated);
+        assertEquals("40", updated.getMeals().get(0).getQuantity());
+        assertEquals("41", updated.getMeals().get(1).getQuantity());
+        assertEquals(sample.getVersion() + 1, updated.getVersion().longValue());
+    }
+
+    @Test
+    void changeMealQuantityWithUnknownMeal() {
+        final var sample = this.createSample();
+
+        final var known = new MealDTO();
+        known.setId(sample.getMeals().get(0).getId());
+        known.setQuantity("42");
+
+        final var unknown = new MealDTO();
+        unknown.setId(new ObjectId().toHexString());
+        unknown.setQuantity("1");
+
+        final var exception = assertThrows(BusinessException.class, () -> this.orderService.changeMealQuantity(sample.getId(), List.of(known, unknown)).block());
+        assertEquals("Meal not found", exception.getMessage());
+
+        // Nothing is written when any of the meals is missing
+        final var stored = this.orderRepository.findById(sample.getId()).block();
+        assertNotNull(stored);
+        assertEquals(sample.getMeals().get(0).getQuantity(), stored.getMeals().get(0).getQuantity());
+        assertEquals(sample.getVersion(), stored.getVersion().longValue());
+    }
+
+    @Test
+    void changeMealQuantityOrderNotFound() {
+        final var meal = new MealDTO();
+        meal.setId("NOT_FOUND");
+        meal.setQuantity("1");
+
+        final var exception = assertThrows(BusinessException.class, () -> this.orderService.changeMealQuantity("NOT_FOUND", List.of(meal)).block());
+        assertEquals("Order not found", exception.getMessage());
+    }
+
     @Test
     void delete() {
         final var sample = this.createSample();
@@ -453,6 +682,8 @@ public class OrderServiceTest {
                 .expectComplete()
                 .verify();
 
+        Assertions.assertFalse(this.orderRepository.existsById(sample.getId()).block());
+
         final var message = this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll();
         Assertions.assertNotNull(message);
 
@@ -490,6 +721,272 @@ public class OrderServiceTest {
         assertEquals("Order not found", exception.getMessage());
     }
 
+    @Test
+    void batch() {
+        final var updated = this.createSample();
+        final var deleted = this.createSample();
+
+        final var create = this.enhancedRandom.nextObject(OrderInputDTO.class, "id");
+        create.setAction(ActionType.CREATE);
+        create.setStatus(OrderStatusType.CREATED);
+
+        final var update = this.toInput(updated);
+        update.setAction(ActionType.UPDATE);
+        update.setStatus(OrderStatusType.PAID);
+
+        final var delete = this.toInput(deleted);
+        delete.setAction(ActionType.DELETE);
+
+        final var notFound = this.enhancedRandom.nextObject(OrderInputDTO.class);
+        notFound.setId("NOT_FOUND");
+        notFound.setAction(ActionType.DELETE);
+
+        final var invalid = this.enhancedRandom.nextObject(OrderInputDTO.class, "customerId");
+        invalid.setAction(ActionType.CREATE);
+        invalid.setStatus(OrderStatusType.CREATED);
+
+        final var results = this.orderService.batch(List.of(create, update, delete, notFound, invalid)).collectList().block();
+
+        assertNotNull(results);
+        assertEquals(5, results.size());
+        Assertions.assertNull(results.get(0).getError());
+        Assertions.assertNull(results.get(1).getError());
+        Assertions.assertNull(results.get(2).getError());
+        assertEquals("Order not found", results.get(3).getError());
+        assertEquals("Customer Id is required", results.get(4).getError());
+
+        assertEquals(OrderStatusType.PAID, this.orderRepository.findById(updated.getId()).map(Order::getStatus).block());
+        Assertions.assertFalse(this.orderRepository.existsById(deleted.getId()).block());
+        assertEquals(1L, this.orderRepository.findByCustomerId(create.getCustomerId()).count().block());
+
+        final var messages = this.messageCollector.forChannel(this.orderChannels.orderProducer());
+        assertEquals(3, messages.size());
+    }
+
+    @Test
+    void batchFoldsMessagesOfTheSameOrder() {
+        final var sample = this.createSample();
+
+        final var first = this.toInput(sample);
+        first.setAction(ActionType.UPDATE);
+        first.setStatus(OrderStatusType.PAID);
+
+        final var second = this.toInput(sample);
+        second.setAction(ActionType.UPDATE);
+        second.setStatus(OrderStatusType.IN_PREPARATION);
+
+        final var results = this.orderService.batch(List.of(first, second)).collectList().block();
+
+        assertNotNull(results);
+        Assertions.assertTrue(results.stream().allMatch(t -> t.getError() == null));
+        assertEquals(OrderStatusType.IN_PREPARATION, this.orderRepository.findById(sample.getId()).map(Order::getStatus).block());
+
+        final var message = this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll();
+        Assertions.assertNotNull(message);
+        Assertions.assertNull(this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll());
+
+        final var payload = Try.of(() -> this.objectMapper.readValue((String ) message.getPayload(), OrderOutputDTO.class)).getOrNull();
+        Assertions.assertNotNull(payload);
+        assertEquals(OrderStatusType.IN_PREPARATION, payload.getStatus());
+        assertEquals(ActionType.UPDATE, payload.getAction());
+    }
+
+    @Test
+    void batchPublishesItemDeltas() {
+        final var sample = this.createSample();
+        final var meal = this.enhancedRandom.nextObject(MealDTO.class, "id", "creationDate");
+
+        final var add = new OrderInputDTO();
+        add.setId(sample.getId());
+        add.setAction(ActionType.ADD_MEALS);
+        add.setMeals(List.of(this.copyWithoutId(meal)));
+
+        final var retried = new OrderInputDTO();
+        retried.setId(sample.getId());
+        retried.setAction(ActionType.ADD_MEALS);
+        retried.setMeals(List.of(this.copyWithoutId(meal)));
+
+        final var results = this.orderService.batch(List.of(add), List.of("order-in-v1-0-44")).collectList().block();
+        final var replays = this.orderService.batch(List.of(retried), List.of("order-in-v1-0-44")).collectList().block();
+
+        assertNotNull(results);
+        assertNotNull(replays);
+        Assertions.assertTrue(results.stream().allMatch(t -> t.getError() == null));
+        Assertions.assertTrue(replays.stream().allMatch(t -> t.getError() == null));
+        assertEquals(sample.getMeals().size() + 1, this.orderRepository.findById(sample.getId()).map(t -> t.getMeals().size()).block());
+
+        // The item message is written with the whole order but published with the added meal only
+        final var payload = this.pollOutput();
+        assertEquals(ActionType.ADD_MEALS, payload.getAction());
+        assertEquals(1, payload.getMeals().size());
+        assertEquals(meal.getDescription(), payload.getMeals().get(0).getDescription());
+
+        final var replayed = this.pollOutput();
+        assertEquals(ActionType.ADD_MEALS, replayed.getAction());
+        assertEquals(payload.getMeals().get(0).getId(), replayed.getMeals().get(0).getId());
+    }
+
+    @Test
+    void createRetriedMessage() {
+        final var request = this.enhancedRandom.nextObject(OrderInsertRequestDTO.class);
+        request.setStatus(OrderStatusType.CREATED);
+
+        final var first = this.orderService.create(request, "order-in-v1-0-42").block();
+        final var retried = this.orderService.create(request, "order-in-v1-0-42").block();
+
+        assertNotNull(first);
+        assertNotNull(retried);
+        assertEquals(first.getId(), retried.getId());
+        assertEquals(1L, this.orderRepository.findByCustomerId(request.getCustomerId()).count().block());
+    }
+
+    @Test
+    void createAll() {
+        final var valid = this.enhancedRandom.nextObject(OrderInsertRequestDTO.class);
+        valid.setStatus(OrderStatusType.CREATED);
+
+        final var invalid = this.enhancedRandom.nextObject(OrderInsertRequestDTO.class, "customerId");
+        invalid.setStatus(OrderStatusType.CREATED);
+
+        final var results = this.orderService.createAll(Flux.just(valid, invalid)).collectList().block();
+        assertNotNull(results);
+        assertEquals(2, results.size());
+
+        final var created = results.get(0);
+        assertEquals(0L, created.getIndex().longValue());
+        assertNotNull(created.getId());
+        Assertions.assertNull(created.getError());
+        assertEquals(valid.getCustomerId(), this.orderRepository.findById(created.getId()).map(Order::getCustomerId).block());
+
+        final var rejected = results.get(1);
+        assertEquals(1L, rejected.getIndex().longValue());
+        assertEquals("Customer Id is required", rejected.getError());
+    }
+
+    @Test
+    void updateAll() {
+        final var sample = this.createSample();
+
+        final var request = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
+        request.setId(sample.getId());
+        request.setStatus(OrderStatusType.PAID);
+
+        final var missing = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
+        missing.setId("NOT_FOUND");
+        missing.setStatus(OrderStatusType.PAID);
+
+        StepVerifier.create(this.orderService.updateAll(Flux.just(request, missing)))
+                .expectNextMatches(value -> sample.getId().equals(value.getId()) && value.getError() == null)
+                .expectNextMatches(value -> "NOT_FOUND".equals(value.getId()) && "Order not found".equals(value.getError()))
+                .verifyComplete();
+
+        final var updated = this.orderRepository.findById(sample.getId()).block();
+        assertNotNull(updated);
+        assertEquals(OrderStatusType.PAID, updated.getStatus());
+        assertEquals(sample.getCustomerId(), updated.getCustomerId());
+        assertEquals(sample.getVersion() + 1, updated.getVersion().longValue());
+    }
+
+    @Test
+    void watchById() {
+        final var request = this.enhancedRandom.nextObject(OrderInsertRequestDTO.class);
+        request.setStatus(OrderStatusType.CREATED);
+
+        final var created = this.orderService.create(request).block();
+        assertNotNull(created);
+        this.pollOutput();
+
+        final var update = this.enhancedRandom.nextObject(OrderUpdateRequestDTO.class);
+        update.setId(created.getId());
+        update.setStatus(OrderStatusType.PAID);
+
+        final var other = this.createSample();
+
+        StepVerifier.create(this.orderService.watchById(created.getId()))
+                .expectNextMatches(value -> created.getId().equals(value.getId()) && OrderStatusType.CREATED.equals(value.getStatus()))
+                .then(() -> {
+                    this.orderService.update(update).block();
+
+                    // order-out-v1 is read back as the binder would deliver it, the repeated and unrelated events are not pushed
+                    final var event = this.pollOutput();
+                    this.orderChannels.orderStatusConsumer().send(MessageBuilder.withPayload(event).build());
+                    this.orderChannels.orderStatusConsumer().send(MessageBuilder.withPayload(event).build());
+                    this.orderChannels.orderStatusConsumer().send(MessageBuilder.withPayload(this.toOutput(other)).build());
+                })
+                .expectNextMatches(value -> OrderStatusType.PAID.equals(value.getStatus()) && ActionType.UPDATE.equals(value.getAction()))
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void watchByIdNotFound() {
+        StepVerifier.create(this.orderService.watchById(new ObjectId().toHexString()))
+                .expectErrorMessage("Order not found")
+                .verify();
+    }
+
+    private OrderOutputDTO toOutput(final Order order) {
+        final var output = new OrderOutputDTO();
+        output.setId(order.getId());
+        output.setCustomerId(order.getCustomerId());
+        output.setStatus(order.getStatus());
+        output.setAction(ActionType.UPDATE);
+
+        return output;
+    }
+
+    @Test
+    void deleteByCustomerId() {
+        final var orders = this.enhancedRandom.objects(Order.class, 3, "id").collect(Collectors.toList());
+        orders.forEach(t -> t.setCustomerId("CUSTOMER"));
+        this.orderRepository.insert(orders).blockLast();
+
+        final var progress = this.orderService.deleteByCustomerId("CUSTOMER").collectList().block();
+        assertNotNull(progress);
+        assertEquals(3L, progress.get(progress.size() - 1).longValue());
+
+        final var deleted = IntStream.range(0, 3)
+                .mapToObj(i -> this.pollOutput())
+                .peek(t -> assertEquals(ActionType.DELETE, t.getAction()))
+                .map(OrderOutputDTO::getId)
+                .collect(Collectors.toSet());
+
+        assertEquals(orders.stream().map(Order::getId).collect(Collectors.toSet()), deleted);
+        Assertions.assertNull(this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll());
+    }
+
+    private OrderOutputDTO pollOutput() {
+        final var message = this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll();
+        Assertions.assertNotNull(message);
+
+        final var payload = Try.of(() -> this.objectMapper.readValue((String ) message.getPayload(), OrderOutputDTO.class)).getOrNull();
+        Assertions.assertNotNull(payload);
+
+        return payload;
+    }
+
+    private MealDTO copyWithoutId(final MealDTO meal) {
+        final var copy = new MealDTO();
+        copy.setDescription(meal.getDescription());
+        copy.setNote(meal.getNote());
+        copy.setQuantity(meal.getQuantity());
+        copy.setType(meal.getType());
+
+        return copy;
+    }
+
+    private OrderInputDTO toInput(final Order order) {
+        final var input = new OrderInputDTO();
+        input.setId(order.getId());
+        input.setCustomerId(order.getCustomerId());
+        input.setCreationDate(order.getCreationDate());
+        input.setMeals(order.getMeals());
+        input.setStatus(order.getStatus());
+
+        return input;
+    }
+
     private Order createSample() {
         final var order = this.enhancedRandom.nextObject(Order.class);
         order.setId(null);
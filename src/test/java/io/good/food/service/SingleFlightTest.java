@@ -0,0 +1,43 @@
+package io.good.food.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SingleFlightTest {
+
+    @Test
+    void sharesOneQueryUntilItEnds() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var singleFlight = new SingleFlight<String>(meterRegistry, "test");
+        final var queries = new AtomicInteger();
+        final var result = MonoProcessor.<String>create();
+
+        final var values = Flux.range(0, 10)
+                .flatMap(i -> singleFlight.execute("order-1", () -> {
+                    queries.incrementAndGet();
+                    return result;
+                }))
+                .collectList()
+                .toProcessor();
+
+        values.subscribe();
+        assertEquals(1, singleFlight.size());
+        result.onNext("value");
+
+        assertEquals(10, values.block().size());
+        assertEquals(1, queries.get());
+        assertEquals(0, singleFlight.size());
+        assertEquals(1.0, meterRegistry.counter("single-flight.executions", "name", "test").count());
+        assertEquals(9.0, meterRegistry.counter("single-flight.coalesced", "name", "test").count());
+
+        assertEquals("next", singleFlight.execute("order-1", () -> Mono.just("next")).block());
+        assertEquals(2.0, meterRegistry.counter("single-flight.executions", "name", "test").count());
+    }
+}
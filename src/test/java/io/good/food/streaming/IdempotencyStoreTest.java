@@ -0,0 +1,100 @@
+package io.good.food.streaming;
+
+import io.good.food.exception.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+
+    @Test
+    void claim() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var store = new IdempotencyStore(null, meterRegistry, true, false, 10, 60000L, 60000L);
+
+        assertTrue(store.claim("order-in-v1-0-1").block());
+        store.complete("order-in-v1-0-1").block();
+        assertFalse(store.claim("order-in-v1-0-1").block());
+        assertTrue(store.claim("order-in-v1-0-2").block());
+
+        assertEquals(1.0, meterRegistry.counter("order.consumer.idempotency.hits").count());
+        assertEquals(2.0, meterRegistry.counter("order.consumer.idempotency.misses").count());
+        assertEquals(2.0, meterRegistry.get("order.consumer.idempotency.size").gauge().value());
+        assertTrue(meterRegistry.get("order.consumer.idempotency.memory").gauge().value() > 0);
+    }
+
+    @Test
+    void claimPending() {
+        final var store = new IdempotencyStore(null, new SimpleMeterRegistry(), true, false, 10, 60000L, 60000L);
+
+        assertTrue(store.claim("key").block());
+
+        StepVerifier.create(store.claim("key"))
+                .expectError(RetryableException.class)
+                .verify();
+    }
+
+    @Test
+    void claimWithoutKey() {
+        final var store = new IdempotencyStore(null, new SimpleMeterRegistry(), true, false, 10, 60000L, 60000L);
+
+        assertTrue(store.claim(null).block());
+        assertTrue(store.claim(null).block());
+    }
+
+    @Test
+    void release() {
+        final var store = new IdempotencyStore(null, new SimpleMeterRegistry(), true, false, 10, 60000L, 60000L);
+
+        assertTrue(store.claim("key").block());
+        store.release("key").block();
+        assertTrue(store.claim("key").block());
+    }
+
+    @Test
+    void evictOldestWhenFull() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var store = new IdempotencyStore(null, meterRegistry, true, false, 2, 60000L, 60000L);
+
+        assertTrue(store.claim("first").block());
+        store.complete("first").block();
+        assertTrue(store.claim("second").block());
+        store.complete("second").block();
+        assertTrue(store.claim("third").block());
+        store.complete("third").block();
+
+        assertEquals(2.0, store.size());
+        assertEquals(1.0, meterRegistry.counter("order.consumer.idempotency.evictions").count());
+        assertTrue(store.claim("first").block());
+        assertFalse(store.claim("third").block());
+    }
+
+    @Test
+    void expire() throws InterruptedException {
+        final var store = new IdempotencyStore(null, new SimpleMeterRegistry(), true, false, 10, 1L, 60000L);
+
+        assertTrue(store.claim("key").block());
+        store.complete("key").block();
+        Thread.sleep(5);
+        assertTrue(store.claim("key").block());
+    }
+
+    @Test
+    void expireLease() throws InterruptedException {
+        final var store = new IdempotencyStore(null, new SimpleMeterRegistry(), true, false, 10, 60000L, 1L);
+
+        assertTrue(store.claim("key").block());
+        Thread.sleep(5);
+        assertTrue(store.claim("key").block());
+    }
+
+    @Test
+    void disabled() {
+        final var store = new IdempotencyStore(null, new SimpleMeterRegistry(), false, false, 10, 60000L, 60000L);
+
+        assertTrue(store.claim("key").block());
+        assertTrue(store.claim("key").block());
+    }
+}
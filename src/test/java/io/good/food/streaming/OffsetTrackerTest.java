@@ -0,0 +1,137 @@
+package io.good.food.streaming;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffsetTrackerTest {
+
+    private final OffsetTracker offsetTracker = new OffsetTracker();
+
+    @Test
+    void acknowledgeInOffsetOrder() {
+        final var first = Mockito.mock(Acknowledgment.class);
+        final var second = Mockito.mock(Acknowledgment.class);
+        final var third = Mockito.mock(Acknowledgment.class);
+
+        final var firstMessage = this.message(0, 0, first);
+        final var secondMessage = this.message(0, 1, second);
+        final var thirdMessage = this.message(0, 2, third);
+
+        this.offsetTracker.track(firstMessage);
+        this.offsetTracker.track(secondMessage);
+        this.offsetTracker.track(thirdMessage);
+
+        this.offsetTracker.acknowledge(thirdMessage);
+        this.offsetTracker.acknowledge(secondMessage);
+        Mockito.verifyNoInteractions(first, second, third);
+
+        this.offsetTracker.acknowledge(firstMessage);
+        Mockito.verify(third).acknowledge();
+        Mockito.verifyNoInteractions(first, second);
+        assertEquals(0, this.offsetTracker.size());
+    }
+
+    @Test
+    void partitionsAreIndependent() {
+        final var first = Mockito.mock(Acknowledgment.class);
+        final var second = Mockito.mock(Acknowledgment.class);
+
+        final var firstMessage = this.message(0, 0, first);
+        final var secondMessage = this.message(1, 0, second);
+
+        this.offsetTracker.track(firstMessage);
+        this.offsetTracker.track(secondMessage);
+
+        this.offsetTracker.acknowledge(secondMessage);
+        Mockito.verify(second).acknowledge();
+        Mockito.verifyNoInteractions(first);
+        assertEquals(1, this.offsetTracker.size());
+    }
+
+    @Test
+    void withoutAcknowledgment() {
+        final var message = MessageBuilder.withPayload("order").build();
+
+        this.offsetTracker.track(message);
+        this.offsetTracker.acknowledge(message);
+
+        assertEquals(0, this.offsetTracker.size());
+    }
+
+    @Test
+    void redeliveryTakesOverItsOffset() {
+        final var first = Mockito.mock(Acknowledgment.class);
+        final var redelivered = Mockito.mock(Acknowledgment.class);
+
+        this.offsetTracker.track(this.message(0, 0, first));
+
+        final var redelivery = this.message(0, 0, redelivered);
+        this.offsetTracker.track(redelivery);
+        assertEquals(1, this.offsetTracker.size());
+
+        this.offsetTracker.acknowledge(redelivery);
+        Mockito.verify(redelivered).acknowledge();
+        Mockito.verifyNoInteractions(first);
+        assertEquals(0, this.offsetTracker.size());
+    }
+
+    @Test
+    void failedMessageIsSoughtBack() {
+        final var consumer = Mockito.mock(Consumer.class);
+
+        final var failed = this.message(0, 0, Mockito.mock(Acknowledgment.class), consumer);
+        final var inFlight = this.message(0, 1, Mockito.mock(Acknowledgment.class), consumer);
+
+        this.offsetTracker.track(failed);
+        this.offsetTracker.track(inFlight);
+        this.offsetTracker.fail(failed);
+
+        // The next message of the partition seeks back to the failed one and is skipped, it comes again after it
+        assertFalse(this.offsetTracker.track(this.message(0, 2, Mockito.mock(Acknowledgment.class), consumer)));
+        Mockito.verify(consumer).seek(new TopicPartition("order-in-v1", 0), 0L);
+        assertEquals(0, this.offsetTracker.size());
+
+        assertTrue(this.offsetTracker.track(this.message(0, 0, Mockito.mock(Acknowledgment.class), consumer)));
+        assertEquals(1, this.offsetTracker.size());
+    }
+
+    @Test
+    void revokedPartitionsAreDropped() {
+        final var acknowledgment = Mockito.mock(Acknowledgment.class);
+        final var message = this.message(0, 0, acknowledgment);
+
+        this.offsetTracker.track(message);
+        this.offsetTracker.track(this.message(1, 0, Mockito.mock(Acknowledgment.class)));
+        this.offsetTracker.revoke(List.of(new TopicPartition("order-in-v1", 0)));
+        assertEquals(1, this.offsetTracker.size());
+
+        this.offsetTracker.acknowledge(message);
+        Mockito.verifyNoInteractions(acknowledgment);
+    }
+
+    private Message<String> message(final int partition, final long offset, final Acknowledgment acknowledgment) {
+        return this.message(partition, offset, acknowledgment, null);
+    }
+
+    private Message<String> message(final int partition, final long offset, final Acknowledgment acknowledgment, final Consumer<?, ?> consumer) {
+        return MessageBuilder.withPayload("order")
+                .setHeader(KafkaHeaders.RECEIVED_TOPIC, "order-in-v1")
+                .setHeader(KafkaHeaders.RECEIVED_PARTITION_ID, partition)
+                .setHeader(KafkaHeaders.OFFSET, offset)
+                .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+                .setHeader(KafkaHeaders.CONSUMER, consumer)
+                .build();
+    }
+}
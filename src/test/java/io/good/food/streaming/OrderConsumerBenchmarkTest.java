@@ -0,0 +1,94 @@
+package io.good.food.streaming;
+
+import io.github.benas.randombeans.api.EnhancedRandom;
+import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.dto.response.OrderResponseDTO;
+import io.good.food.dto.stream.OrderInputDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.dto.type.OrderStatusType;
+import io.good.food.service.OrderService;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+public class OrderConsumerBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderConsumerBenchmarkTest.class);
+
+    private static final int MESSAGES = 500;
+
+    private static final Duration MONGO_LATENCY = Duration.ofMillis(2);
+
+    private final EnhancedRandom enhancedRandom = RandomBeanConfiguration.newEnhancedRandom();
+
+    @Test
+    void throughput() throws InterruptedException {
+        final var messages = this.messages();
+
+        final var blocking = this.throughput(ConsumerMode.BLOCKING, messages);
+        final var reactive = this.throughput(ConsumerMode.REACTIVE, messages);
+
+        // Timings depend on the machine, so they are only reported
+        LOGGER.info("Consumer throughput. Blocking: {} msg/s, Reactive: {} msg/s", blocking, reactive);
+    }
+
+    private long throughput(final ConsumerMode mode, final List<Message<OrderInputDTO>> messages) throws InterruptedException {
+        final var latch = new CountDownLatch(messages.size());
+        final var consumer = this.consumer(mode, this.orderService(latch));
+
+        final var start = System.nanoTime();
+        messages.forEach(consumer::listener);
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        final var elapsed = System.nanoTime() - start;
+
+        consumer.stop();
+
+        return messages.size() * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    private OrderConsumer consumer(final ConsumerMode mode, final OrderService orderService) {
+        final var idempotencyStore = new IdempotencyStore(null, new SimpleMeterRegistry(), true, false, 1000, 60000L, 60000L);
+        final var consumer = new OrderConsumer(new DefaultMapperFactory.Builder().build().getMapperFacade(), orderService, idempotencyStore, new OrderFailureHandler(null, 3, 1000L, 2.0, 60000L), new SimpleMeterRegistry(), Duration.ofSeconds(30), Map.of(), mode, 64, 64, 100, 200L);
+        consumer.start();
+
+        return consumer;
+    }
+
+    private OrderService orderService(final CountDownLatch latch) {
+        final var orderService = Mockito.mock(OrderService.class);
+
+        Mockito.when(orderService.create(any(), any())).thenAnswer(invocation -> Mono.delay(MONGO_LATENCY)
+                .thenReturn(new OrderResponseDTO())
+                .doOnTerminate(latch::countDown));
+
+        return orderService;
+    }
+
+    private List<Message<OrderInputDTO>> messages() {
+        return IntStream.range(0, MESSAGES)
+                .mapToObj(i -> {
+                    final var input = this.enhancedRandom.nextObject(OrderInputDTO.class, "id");
+                    input.setAction(ActionType.CREATE);
+                    input.setStatus(OrderStatusType.CREATED);
+                    return MessageBuilder.withPayload(input).build();
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -4,30 +4,54 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.benas.randombeans.api.EnhancedRandom;
 import io.good.food.Application;
 import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.dto.domain.MealDTO;
+import io.good.food.dto.request.OrderUpdateRequestDTO;
+import io.good.food.dto.response.OrderResponseDTO;
 import io.good.food.dto.stream.OrderInputDTO;
 import io.good.food.dto.stream.OrderOutputDTO;
 import io.good.food.dto.type.ActionType;
 import io.good.food.dto.type.OrderStatusType;
 import io.good.food.entity.Order;
+import io.good.food.exception.BusinessException;
 import io.good.food.repository.OrderRepository;
+import io.good.food.service.OrderService;
 import io.good.food.streaming.channel.OrderChannels;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vavr.control.Try;
 import ma.glasnost.orika.MapperFacade;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.util.MimeTypeUtils;
-
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
 
 @SpringBootTest(classes={Application.class, RandomBeanConfiguration.class})
 @ExtendWith(SpringExtension.class)
@@ -46,25 +70,31 @@ public class OrderConsumerTest {
 
     private final ObjectMapper objectMapper;
 
+    private final OrderConsumer orderConsumer;
+
     @Autowired
     public OrderConsumerTest(final OrderRepository orderRepository,
                              final OrderChannels orderChannels,
                              final EnhancedRandom enhancedRandom,
                              final MapperFacade mapperFacade,
                              final MessageCollector messageCollector,
-                             final ObjectMapper objectMapper) {
+                             final ObjectMapper objectMapper,
+                             final OrderConsumer orderConsumer) {
         this.orderRepository = orderRepository;
         this.orderChannels = orderChannels;
         this.enhancedRandom = enhancedRandom;
         this.mapperFacade = mapperFacade;
         this.messageCollector = messageCollector;
         this.objectMapper = objectMapper;
+        this.orderConsumer = orderConsumer;
     }
 
     @BeforeEach
     protected void init() {
         this.messageCollector.forChannel(this.orderChannels.orderConsumer()).clear();
         this.messageCollector.forChannel(this.orderChannels.orderProducer()).clear();
+        this.messageCollector.forChannel(this.orderChannels.orderRetryProducer()).clear();
+        this.messageCollector.forChannel(this.orderChannels.orderDlqProducer()).clear();
     }
 
     @Test
@@ -88,6 +118,7 @@ public class OrderConsumerTest {
         assertNotNull(payload);
         assertNotNull(payload.getCreationDate());
         assertNotNull(payload.getId());
+        assertEquals(payload.getId(), message.getHeaders().get(OrderProducer.PARTITION_KEY));
         assertEquals(request.getCustomerId(), payload.getCustomerId());
         assertEquals(request.getStatus(), payload.getStatus());
         assertEquals(ActionType.CREATE, payload.getAction());
@@ -105,6 +136,27 @@ public class OrderConsumerTest {
         });
     }
 
+    @Test
+    void sendDuplicatedCreation() {
+        final var request = this.enhancedRandom.nextObject(OrderInputDTO.class, "id");
+        request.setAction(ActionType.CREATE);
+        request.setStatus(OrderStatusType.CREATED);
+
+        final var messageEvent = MessageBuilder
+                .withPayload(request)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .setHeader(OrderConsumer.MESSAGE_ID, UUID.randomUUID().toString())
+                .build();
+
+        this.orderChannels.orderConsumer().send(messageEvent);
+        this.orderChannels.orderConsumer().send(messageEvent);
+
+        final var producer = this.messageCollector.forChannel(this.orderChannels.orderProducer());
+        assertNotNull(producer.poll());
+        assertNull(producer.poll());
+        assertEquals(1L, this.orderRepository.findByCustomerId(request.getCustomerId()).count().block().longValue());
+    }
+
     @Test
     void sendCreationWithoutCustomerId() {
         final var request = this.enhancedRandom.nextObject(OrderInputDTO.class, "customerId");
@@ -125,6 +177,53 @@ public class OrderConsumerTest {
         assertNull(producer);
     }
 
+    @Test
+    void sendCreationWithoutCustomerIdToDeadLetter() {
+        final var request = this.enhancedRandom.nextObject(OrderInputDTO.class, "customerId");
+        request.setAction(ActionType.CREATE);
+        request.setStatus(OrderStatusType.CREATED);
+
+        final var messageEvent = MessageBuilder
+                .withPayload(request)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build();
+
+        this.orderChannels.orderConsumer().send(messageEvent);
+
+        final var retry = this.messageCollector.forChannel(this.orderChannels.orderRetryProducer()).poll();
+        assertNull(retry);
+
+        final var dead = Try.of(() -> this.messageCollector.forChannel(this.orderChannels.orderDlqProducer()).poll(5, TimeUnit.SECONDS)).getOrNull();
+        assertNotNull(dead);
+        assertEquals("Customer Id is required", dead.getHeaders().get(OrderFailureHandler.ERROR_MESSAGE));
+        assertEquals(BusinessException.class.getName(), dead.getHeaders().get(OrderFailureHandler.ERROR_CLASS));
+        assertEquals(0, dead.getHeaders().get(OrderFailureHandler.RETRY_ATTEMPT));
+    }
+
+    @Test
+    void sendRetry() {
+        final var request = this.enhancedRandom.nextObject(OrderInputDTO.class, "id");
+        request.setAction(ActionType.CREATE);
+        request.setStatus(OrderStatusType.CREATED);
+
+        final var messageEvent = MessageBuilder
+                .withPayload(request)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .setHeader(OrderFailureHandler.RETRY_ATTEMPT, 1)
+                .setHeader(OrderFailureHandler.RETRY_DUE, System.currentTimeMillis() + 100)
+                .build();
+
+        this.orderChannels.orderRetryConsumer().send(messageEvent);
+
+        final var message = this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll();
+        assertNotNull(message);
+
+        final var payload = Try.of(() -> this.objectMapper.readValue((String ) message.getPayload(), OrderOutputDTO.class)).getOrNull();
+        assertNotNull(payload);
+        assertEquals(request.getCustomerId(), payload.getCustomerId());
+        assertEquals(ActionType.CREATE, payload.getAction());
+    }
+
     @Test
     void sendUpdate() {
         final var sample = this.createSample();
@@ -260,7 +359,92 @@ public class OrderConsumerTest {
         final var message = this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll();
         assertNull(message);
     }
-    
+
+    @Test
+    void reactiveKeepsOrderPerOrderId() throws InterruptedException {
+        final var orders = 10;
+        final var updates = 20;
+        final var latch = new CountDownLatch(orders * updates);
+        final var applied = new ConcurrentHashMap<String, List<Integer>>();
+
+        final var orderService = Mockito.mock(OrderService.class);
+        Mockito.when(orderService.update(any())).thenAnswer(invocation -> {
+            final OrderUpdateRequestDTO request = invocation.getArgument(0);
+            final var sequence = Integer.valueOf(request.getMeals().get(0).getQuantity());
+
+            return Mono.delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(3)))
+                    .doOnNext(t -> applied.computeIfAbsent(request.getId(), id -> Collections.synchronizedList(new ArrayList<>())).add(sequence))
+                    .thenReturn(new OrderResponseDTO())
+                    .doOnTerminate(latch::countDown);
+        });
+
+        final var idempotencyStore = new IdempotencyStore(null, new SimpleMeterRegistry(), true, false, 1000, 60000L, 60000L);
+        final var consumer = new OrderConsumer(this.mapperFacade, orderService, idempotencyStore, new OrderFailureHandler(null, 3, 1000L, 2.0, 60000L), new SimpleMeterRegistry(),
+                Duration.ofSeconds(30), Map.of(), ConsumerMode.REACTIVE, 64, 64, 100, 200L);
+        consumer.start();
+
+        IntStream.range(0, updates).forEach(sequence -> IntStream.range(0, orders).forEach(order -> {
+            final var meal = new MealDTO();
+            meal.setQuantity(String.valueOf(sequence));
+
+            final var input = new OrderInputDTO();
+            input.setId("order-" + order);
+            input.setAction(ActionType.UPDATE);
+            input.setStatus(OrderStatusType.PAID);
+            input.setMeals(List.of(meal));
+
+            consumer.listener(MessageBuilder.withPayload(input).build());
+        }));
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        consumer.stop();
+
+        final var expected = IntStream.range(0, updates).boxed().collect(Collectors.toList());
+        assertEquals(orders, applied.size());
+        applied.values().forEach(sequences -> assertEquals(expected, sequences));
+    }
+
+    @Test
+    void laneFollowsRecordKey() {
+        final var first = new OrderInputDTO();
+        first.setAction(ActionType.CREATE);
+        first.setCustomerId("customer-1");
+
+        final var second = new OrderInputDTO();
+        second.setId("order-1");
+        second.setAction(ActionType.UPDATE);
+
+        final var key = "order-1".getBytes(StandardCharsets.UTF_8);
+        assertEquals(this.orderConsumer.lane(MessageBuilder.withPayload(first).setHeader(KafkaHeaders.RECEIVED_MESSAGE_KEY, key).build()),
+                this.orderConsumer.lane(MessageBuilder.withPayload(second).setHeader(KafkaHeaders.RECEIVED_MESSAGE_KEY, key).build()));
+        assertEquals(this.orderConsumer.lane(MessageBuilder.withPayload(second).build()),
+                this.orderConsumer.lane(MessageBuilder.withPayload(second).setHeader(KafkaHeaders.RECEIVED_MESSAGE_KEY, key).build()));
+    }
+
+    @Test
+    void deadline() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var orderService = Mockito.mock(OrderService.class);
+        Mockito.when(orderService.update(any())).thenReturn(Mono.never());
+        Mockito.when(orderService.create(any(), any())).thenReturn(Mono.just(new OrderResponseDTO()));
+
+        final var consumer = new OrderConsumer(this.mapperFacade, orderService, null, null, meterRegistry,
+                Duration.ofSeconds(30), Map.of(ActionType.UPDATE, Duration.ofMillis(50)), ConsumerMode.BLOCKING, 64, 64, 100, 200L);
+
+        final var update = new OrderInputDTO();
+        update.setId("order-1");
+        update.setAction(ActionType.UPDATE);
+
+        final var create = new OrderInputDTO();
+        create.setAction(ActionType.CREATE);
+
+        StepVerifier.create(consumer.deadline(update, null)).expectError(TimeoutException.class).verify();
+        StepVerifier.create(consumer.deadline(create, null)).verifyComplete();
+
+        assertEquals(1.0, meterRegistry.counter("order.consumer.timeouts", "action", "UPDATE").count(), 0.0);
+        assertEquals(0.0, meterRegistry.counter("order.consumer.timeouts", "action", "CREATE").count(), 0.0);
+    }
+
     private Order createSample() {
         final var order = this.enhancedRandom.nextObject(Order.class);
         order.setId(null);
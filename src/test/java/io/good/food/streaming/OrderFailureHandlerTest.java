@@ -0,0 +1,47 @@
+package io.good.food.streaming;
+
+import io.good.food.exception.BusinessException;
+import io.good.food.exception.RetryableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderFailureHandlerTest {
+
+    private final OrderFailureHandler orderFailureHandler = new OrderFailureHandler(null, 5, 1000L, 2.0, 5000L);
+
+    @Test
+    void getBackoff() {
+        assertEquals(Duration.ofMillis(1000), this.orderFailureHandler.getBackoff(1));
+        assertEquals(Duration.ofMillis(2000), this.orderFailureHandler.getBackoff(2));
+        assertEquals(Duration.ofMillis(4000), this.orderFailureHandler.getBackoff(3));
+        assertEquals(Duration.ofMillis(5000), this.orderFailureHandler.getBackoff(4));
+    }
+
+    @Test
+    void isRetryable() {
+        assertTrue(this.orderFailureHandler.isRetryable(new DataAccessResourceFailureException("Timed out")));
+        assertTrue(this.orderFailureHandler.isRetryable(new RetryableException("Order event was not acknowledged")));
+        assertFalse(this.orderFailureHandler.isRetryable(new BusinessException("Order not found")));
+        assertFalse(this.orderFailureHandler.isRetryable(new DuplicateKeyException("Duplicated")));
+    }
+
+    @Test
+    void getDelay() {
+        final var due = MessageBuilder.withPayload("payload")
+                .setHeader(OrderFailureHandler.RETRY_DUE, System.currentTimeMillis() + 60000)
+                .build();
+        assertTrue(this.orderFailureHandler.getDelay(due).toMillis() > 0);
+
+        final var late = MessageBuilder.withPayload("payload")
+                .setHeader(OrderFailureHandler.RETRY_DUE, System.currentTimeMillis() - 60000)
+                .build();
+        assertEquals(Duration.ZERO, this.orderFailureHandler.getDelay(late));
+        assertEquals(Duration.ZERO, this.orderFailureHandler.getDelay(MessageBuilder.withPayload("payload").build()));
+    }
+}
@@ -0,0 +1,156 @@
+package io.good.food.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.benas.randombeans.api.EnhancedRandom;
+import io.good.food.Application;
+import io.good.food.configuration.RandomBeanConfiguration;
+import io.good.food.dto.stream.OrderOutputDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.entity.OrderOutbox;
+import io.good.food.repository.OrderOutboxRepository;
+import io.good.food.streaming.channel.OrderChannels;
+import io.vavr.control.Try;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes={Application.class, RandomBeanConfiguration.class}, properties = {"outbox.enabled=true", "outbox.relay.period=3600000"})
+@ExtendWith(SpringExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class OrderOutboxRelayTest {
+
+    private final OrderOutboxRelay orderOutboxRelay;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    private final OrderChannels orderChannels;
+
+    private final EnhancedRandom enhancedRandom;
+
+    private final MessageCollector messageCollector;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OrderOutboxRelayTest(final OrderOutboxRelay orderOutboxRelay,
+                                final OrderOutboxRepository orderOutboxRepository,
+                                final OrderChannels orderChannels,
+                                final EnhancedRandom enhancedRandom,
+                                final MessageCollector messageCollector,
+                                final ObjectMapper objectMapper) {
+        this.orderOutboxRelay = orderOutboxRelay;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderChannels = orderChannels;
+        this.enhancedRandom = enhancedRandom;
+        this.messageCollector = messageCollector;
+        this.objectMapper = objectMapper;
+    }
+
+    @BeforeEach
+    protected void init() {
+        this.orderOutboxRepository.deleteAll().block();
+        this.messageCollector.forChannel(this.orderChannels.orderProducer()).clear();
+    }
+
+    @Test
+    void relay() {
+        final var first = this.createSample(ActionType.CREATE);
+        final var second = this.createSample(ActionType.UPDATE);
+
+        assertEquals(2L, this.orderOutboxRelay.relay().block());
+
+        final var messages = this.messageCollector.forChannel(this.orderChannels.orderProducer());
+        assertEquals(2, messages.size());
+
+        final var message = messages.poll();
+        final var payload = Try.of(() -> this.objectMapper.readValue((String) message.getPayload(), OrderOutputDTO.class)).getOrNull();
+        assertNotNull(payload);
+        assertTrue(first.getOrderId().equals(payload.getId()) || second.getOrderId().equals(payload.getId()));
+
+        final var pending = this.orderOutboxRepository.findAll()
+                .filter(t -> t.getSentDate() == null)
+                .count()
+                .block();
+        assertEquals(0L, pending);
+    }
+
+    @Test
+    void relayIgnoresSentEvents() {
+        final var sample = this.createSample(ActionType.DELETE);
+        sample.setSentDate(LocalDateTime.now());
+        this.orderOutboxRepository.save(sample).block();
+
+        assertEquals(0L, this.orderOutboxRelay.relay().block());
+        assertNull(this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll());
+    }
+
+    @Test
+    void relaySkipsEventsClaimedByOthers() {
+        final var sample = this.createSample(ActionType.UPDATE);
+        sample.setOwner("other");
+        sample.setLeaseDate(LocalDateTime.now().plusHours(1));
+        this.orderOutboxRepository.save(sample).block();
+
+        assertEquals(0L, this.orderOutboxRelay.relay().block());
+        assertNull(this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll());
+
+        // Once the lease is over the event was never sent, so it is claimed again
+        sample.setLeaseDate(LocalDateTime.now().minusSeconds(1));
+        this.orderOutboxRepository.save(sample).block();
+
+        assertEquals(1L, this.orderOutboxRelay.relay().block());
+        assertNotNull(this.messageCollector.forChannel(this.orderChannels.orderProducer()).poll());
+    }
+
+    @Test
+    void concurrentRelaysSendEachEventOnce() {
+        IntStream.range(0, 10).forEach(i -> this.createSample(ActionType.CREATE));
+
+        final var sent = Flux.merge(this.orderOutboxRelay.relay(), this.orderOutboxRelay.relay(), this.orderOutboxRelay.relay())
+                .reduce(0L, Long::sum)
+                .block();
+
+        assertEquals(10L, sent);
+        assertEquals(10, this.messageCollector.forChannel(this.orderChannels.orderProducer()).size());
+    }
+
+    @Test
+    void relayWaitsForOlderEventsOfTheOrder() {
+        final var older = this.createSample(ActionType.CREATE);
+        older.setOwner("other");
+        older.setLeaseDate(LocalDateTime.now().plusHours(1));
+        this.orderOutboxRepository.save(older).block();
+
+        final var newer = this.createSample(ActionType.UPDATE);
+        newer.setOrderId(older.getOrderId());
+        newer.setCreationDate(older.getCreationDate().plusSeconds(1));
+        this.orderOutboxRepository.save(newer).block();
+
+        assertEquals(0L, this.orderOutboxRelay.relay().block());
+        assertNull(this.orderOutboxRepository.findById(newer.getId()).block().getSentDate());
+    }
+
+    private OrderOutbox createSample(final ActionType action) {
+        final var event = this.enhancedRandom.nextObject(OrderOutputDTO.class);
+        event.setAction(action);
+
+        final var outbox = new OrderOutbox();
+        outbox.setCreationDate(LocalDateTime.now());
+        outbox.setOrderId(event.getId());
+        outbox.setEvent(event);
+
+        return this.orderOutboxRepository.insert(outbox).block();
+    }
+}
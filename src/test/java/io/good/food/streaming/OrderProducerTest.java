@@ -0,0 +1,82 @@
+package io.good.food.streaming;
+
+import io.good.food.dto.stream.OrderOutputDTO;
+import io.good.food.exception.RetryableException;
+import io.good.food.streaming.channel.OrderChannels;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class OrderProducerTest {
+
+    private final SubscribableChannel channel = Mockito.mock(SubscribableChannel.class);
+
+    private final OrderProducer orderProducer = this.producer(1);
+
+    @Test
+    void completesWhenTheBrokerAnswers() {
+        final var output = new OrderOutputDTO();
+        output.setId("order-1");
+
+        StepVerifier.create(this.orderProducer.output(output))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> this.orderProducer.acknowledged(MessageBuilder.fromMessage(this.sent(1))
+                        .setHeader(KafkaHeaders.RECORD_METADATA, "metadata")
+                        .build()))
+                .expectNext(output)
+                .verifyComplete();
+    }
+
+    @Test
+    void failsRetryableWhenTheBrokerRejects() {
+        StepVerifier.create(this.orderProducer.output(new OrderOutputDTO()))
+                .expectSubscription()
+                .then(() -> this.orderProducer.failed(new ErrorMessage(new MessageDeliveryException(this.sent(1), "broker unavailable"))))
+                .expectError(RetryableException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void boundsUnacknowledgedSends() {
+        StepVerifier.create(Mono.when(this.orderProducer.output(new OrderOutputDTO()), this.orderProducer.output(new OrderOutputDTO())))
+                .expectSubscription()
+                .then(() -> {
+                    // With one send in flight the second one waits for the first answer
+                    final var first = this.sent(1);
+                    Mockito.verify(this.channel, Mockito.after(100).times(1)).send(any());
+                    this.orderProducer.acknowledged(first);
+                })
+                .then(() -> this.orderProducer.acknowledged(this.sent(2)))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Message<?> sent(final int times) {
+        final var captor = ArgumentCaptor.forClass(Message.class);
+        Mockito.verify(this.channel, Mockito.timeout(1000).times(times)).send(captor.capture());
+
+        return captor.getValue();
+    }
+
+    private OrderProducer producer(final Integer maxInFlight) {
+        final var orderChannels = Mockito.mock(OrderChannels.class);
+        Mockito.when(orderChannels.orderProducer()).thenReturn(this.channel);
+        Mockito.when(this.channel.send(any())).thenReturn(true);
+
+        return new OrderProducer(null, orderChannels, maxInFlight, PartitionKeyType.ORDER_ID, true);
+    }
+}
@@ -0,0 +1,208 @@
+package io.good.food.streaming.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.good.food.dto.domain.MealDTO;
+import io.good.food.dto.stream.OrderInputDTO;
+import io.good.food.dto.stream.OrderOutputDTO;
+import io.good.food.dto.type.ActionType;
+import io.good.food.dto.type.MealType;
+import io.good.food.dto.type.OrderStatusType;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBinaryCodecTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderBinaryCodecTest.class);
+
+    private static final int EVENTS = 20000;
+
+    private final OrderBinaryCodec orderBinaryCodec = new OrderBinaryCodec();
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void encodeOutput() {
+        final var output = this.output(3);
+
+        final var decoded = this.orderBinaryCodec.decodeOutput(this.orderBinaryCodec.encode(output));
+
+        assertEquals(output.getId(), decoded.getId());
+        assertEquals(output.getAction(), decoded.getAction());
+        assertEquals(output.getCreationDate(), decoded.getCreationDate());
+        assertEquals(output.getCustomerId(), decoded.getCustomerId());
+        assertEquals(output.getStatus(), decoded.getStatus());
+        assertMeals(output.getMeals(), decoded.getMeals());
+    }
+
+    @Test
+    void encodeInputWithNulls() {
+        final var meal = new MealDTO();
+        meal.setQuantity("2");
+
+        final var input = new OrderInputDTO();
+        input.setAction(ActionType.CREATE);
+        input.setCustomerId("Ãçaí 🍧");
+        input.setMeals(List.of(meal));
+
+        final var decoded = this.orderBinaryCodec.decodeInput(this.orderBinaryCodec.encode(input));
+
+        assertNull(decoded.getId());
+        assertNull(decoded.getCreationDate());
+        assertNull(decoded.getStatus());
+        assertEquals(ActionType.CREATE, decoded.getAction());
+        assertEquals(input.getCustomerId(), decoded.getCustomerId());
+        assertMeals(input.getMeals(), decoded.getMeals());
+
+        input.setMeals(null);
+        assertNull(this.orderBinaryCodec.decodeInput(this.orderBinaryCodec.encode(input)).getMeals());
+    }
+
+    @Test
+    void decodeRejectsInvalidLengths() {
+        final var encoded = this.orderBinaryCodec.encode(this.output(1));
+
+        // A string length far beyond the payload, written as a varint in place of the id length
+        final var string = new byte[] {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F};
+        assertThrows(IllegalArgumentException.class, () -> this.orderBinaryCodec.decodeOutput(string));
+
+        // The meal count is the last varint before the meals, a huge count with no meals after it
+        final var meals = this.orderBinaryCodec.encode(this.output(0));
+        meals[meals.length - 1] = (byte) 0xFF;
+        final var count = new byte[meals.length + 4];
+        System.arraycopy(meals, 0, count, 0, meals.length);
+        count[meals.length] = (byte) 0xFF;
+        count[meals.length + 1] = (byte) 0xFF;
+        count[meals.length + 2] = (byte) 0xFF;
+        count[meals.length + 3] = (byte) 0x0F;
+        assertThrows(IllegalArgumentException.class, () -> this.orderBinaryCodec.decodeOutput(count));
+
+        final var truncated = new byte[encoded.length / 2];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        assertThrows(RuntimeException.class, () -> this.orderBinaryCodec.decodeOutput(truncated));
+    }
+
+    @Test
+    void convert() {
+        final var converter = new OrderBinaryMessageConverter(this.orderBinaryCodec);
+        final var output = this.output(2);
+
+        final var headers = new MessageHeaders(Map.of(MessageHeaders.CONTENT_TYPE, OrderBinaryCodec.MIME_TYPE));
+        final var message = converter.toMessage(output, headers);
+        assertNotNull(message);
+        assertTrue(message.getPayload() instanceof byte[]);
+
+        final var input = (OrderInputDTO) converter.fromMessage(message, OrderInputDTO.class);
+        assertEquals(output.getId(), input.getId());
+        assertMeals(output.getMeals(), input.getMeals());
+
+        final var json = MessageBuilder.withPayload(new byte[0])
+                .setHeader(MessageHeaders.CONTENT_TYPE, "application/json")
+                .build();
+        assertNull(converter.fromMessage(json, OrderInputDTO.class));
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        final var outputs = IntStream.range(0, EVENTS)
+                .mapToObj(i -> this.output(1 + i % 5))
+                .collect(Collectors.toList());
+
+        // Warm up both paths before measuring
+        this.measure(outputs, this.orderBinaryCodec::encode, this.orderBinaryCodec::decodeOutput);
+        this.measure(outputs, this::toJson, this::fromJson);
+
+        final var binary = this.measure(outputs, this.orderBinaryCodec::encode, this.orderBinaryCodec::decodeOutput);
+        final var json = this.measure(outputs, this::toJson, this::fromJson);
+
+        // Timings depend on the machine, so they are only reported
+        LOGGER.info("Order event codec for {} events. JSON: {} bytes, encode {} ms, decode {} ms. Binary: {} bytes, encode {} ms, decode {} ms",
+                EVENTS, json[0], json[1], json[2], binary[0], binary[1], binary[2]);
+
+        assertTrue(binary[0] * 2 < json[0]);
+    }
+
+    private long[] measure(final List<OrderOutputDTO> outputs,
+                           final Function<OrderOutputDTO, byte[]> encoder,
+                           final Function<byte[], OrderOutputDTO> decoder) {
+        final var start = System.nanoTime();
+        final var encoded = outputs.stream().map(encoder).collect(Collectors.toList());
+        final var encoding = System.nanoTime() - start;
+
+        final var decodingStart = System.nanoTime();
+        encoded.forEach(decoder::apply);
+        final var decoding = System.nanoTime() - decodingStart;
+
+        final var bytes = encoded.stream().mapToLong(t -> t.length).sum();
+
+        return new long[] {bytes, TimeUnit.NANOSECONDS.toMillis(encoding), TimeUnit.NANOSECONDS.toMillis(decoding)};
+    }
+
+    private byte[] toJson(final OrderOutputDTO output) {
+        try {
+            return this.objectMapper.writeValueAsBytes(output);
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private OrderOutputDTO fromJson(final byte[] bytes) {
+        try {
+            return this.objectMapper.readValue(bytes, OrderOutputDTO.class);
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private OrderOutputDTO output(final int meals) {
+        final var output = new OrderOutputDTO();
+        output.setId(new ObjectId().toHexString());
+        output.setAction(ActionType.UPDATE);
+        output.setCreationDate(LocalDateTime.now());
+        output.setCustomerId(new ObjectId().toHexString());
+        output.setStatus(OrderStatusType.IN_PREPARATION);
+        output.setMeals(IntStream.range(0, meals)
+                .mapToObj(i -> {
+                    final var meal = new MealDTO();
+                    meal.setId(new ObjectId().toHexString());
+                    meal.setCreationDate(LocalDateTime.now().minusDays(i));
+                    meal.setDescription("Feijoada completa " + i);
+                    meal.setQuantity(String.valueOf(i + 1));
+                    meal.setNote("Sem cebola");
+                    meal.setType(MealType.BRAZILIAN);
+                    return meal;
+                })
+                .collect(Collectors.toList()));
+
+        return output;
+    }
+
+    private static void assertMeals(final List<MealDTO> expected, final List<MealDTO> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        IntStream.range(0, expected.size()).forEach(i -> {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getCreationDate(), actual.get(i).getCreationDate());
+            assertEquals(expected.get(i).getDescription(), actual.get(i).getDescription());
+            assertEquals(expected.get(i).getQuantity(), actual.get(i).getQuantity());
+            assertEquals(expected.get(i).getNote(), actual.get(i).getNote());
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+        });
+    }
+}